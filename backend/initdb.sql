@@ -88,9 +88,11 @@ CREATE TABLE artist (
     image_url VARCHAR(512),
     followers BIGINT DEFAULT 0,
     user_id BIGINT,
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     PRIMARY KEY (id),
+    INDEX artist_followers_idx (followers, id),
     CONSTRAINT artist_user_fk FOREIGN KEY (user_id) REFERENCES user(id) ON DELETE SET NULL
 );
 
@@ -99,6 +101,7 @@ CREATE TABLE album (
     name VARCHAR(255),
     image_url VARCHAR(512),
     artist_id BIGINT,
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     PRIMARY KEY (id),
@@ -133,9 +136,15 @@ CREATE TABLE song (
     song_url VARCHAR(512),
     like_count BIGINT DEFAULT 0,
     album_id BIGINT DEFAULT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'READY',
+    failure_reason VARCHAR(512),
+    version BIGINT NOT NULL DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     PRIMARY KEY (id),
+    INDEX song_like_count_idx (like_count, id),
+    INDEX song_duration_idx (duration, id),
+    INDEX song_status_idx (status),
     CONSTRAINT song_album_fk FOREIGN KEY (album_id) REFERENCES album(id) ON DELETE SET NULL
 );
 
@@ -155,6 +164,60 @@ CREATE TABLE song_genres (
     CONSTRAINT song_genres_genre_fk FOREIGN KEY (genre_id) REFERENCES genre(id) ON DELETE CASCADE
 );
 
+CREATE TABLE song_like (
+    user_id BIGINT NOT NULL,
+    song_id BIGINT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, song_id),
+    INDEX song_like_song_idx (song_id),
+    CONSTRAINT song_like_user_fk FOREIGN KEY (user_id) REFERENCES user(id) ON DELETE CASCADE,
+    CONSTRAINT song_like_song_fk FOREIGN KEY (song_id) REFERENCES song(id) ON DELETE CASCADE
+);
+
+-- Like count changes not yet applied to song.like_count, replayed at startup
+CREATE TABLE song_like_delta (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    song_id BIGINT NOT NULL,
+    delta INT NOT NULL,
+    epoch BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    INDEX song_like_delta_epoch_idx (epoch)
+);
+
+-- Denormalized song rows for listings, rewritten with every catalog change (see SongListingRepository)
+CREATE TABLE song_listing (
+    song_id BIGINT NOT NULL,
+    name VARCHAR(255),
+    duration INT,
+    image_url VARCHAR(512),
+    song_url VARCHAR(512),
+    like_count BIGINT DEFAULT 0,
+    -- [{"id": 1, "name": "..."}, ...]
+    artists JSON,
+    genre_ids JSON,
+    album_id BIGINT DEFAULT NULL,
+    album_name VARCHAR(255),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (song_id),
+    INDEX song_listing_like_count_idx (like_count, song_id),
+    INDEX song_listing_duration_idx (duration, song_id),
+    CONSTRAINT song_listing_song_fk FOREIGN KEY (song_id) REFERENCES song(id) ON DELETE CASCADE
+);
+
+CREATE TABLE song_hls (
+    song_id BIGINT NOT NULL,
+    -- Audio the segments were cut from
+    song_url VARCHAR(512),
+    -- [{"offset": 0, "length": 96000, "startMicros": 0, "durationMicros": 6008163}, ...]
+    segments JSON,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (song_id),
+    CONSTRAINT song_hls_song_fk FOREIGN KEY (song_id) REFERENCES song(id) ON DELETE CASCADE
+);
+
 CREATE TABLE playlist (
     id BIGINT NOT NULL AUTO_INCREMENT,
     name VARCHAR(255),
@@ -197,6 +260,16 @@ CREATE TABLE address (
     CONSTRAINT address_user_fk FOREIGN KEY (user_id) REFERENCES user(id) ON DELETE CASCADE
 );
 
+-- Revoked refresh token ids (jti) and token family ids (fid), kept until the tokens expire
+CREATE TABLE revoked_token (
+    id VARCHAR(64) NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (id),
+    INDEX revoked_token_expires_at_idx (expires_at)
+);
+
 INSERT INTO user (first_name, last_name, gender, date_of_birth, phone_number, email, username, is_active)
 VALUES
 ('admin', 'admin', 'MALE', '2004-12-10', '6969696969', 'trongdz2200444@gmail.com', 'adminadmin', TRUE),
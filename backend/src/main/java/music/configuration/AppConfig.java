@@ -1,8 +1,13 @@
 package music.configuration;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import music.repository.UserRepository;
+import music.security.BoundedPasswordEncoder;
+import music.security.UserDetailsCache;
+import music.security.UserPrincipal;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
@@ -22,16 +27,35 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @EnableSpringDataWebSupport(pageSerializationMode = EnableSpringDataWebSupport.PageSerializationMode.VIA_DTO)
 public class AppConfig {
     private final UserRepository userRepository;
+    private final UserDetailsCache userDetailsCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${passwordEncoder.threads}")
+    private int passwordEncoderThreads;
+
+    @Value("${passwordEncoder.queueCapacity}")
+    private int passwordEncoderQueueCapacity;
+
+    @Value("${passwordEncoder.timeout}")
+    private long passwordEncoderTimeout;
 
     @Bean
     public UserDetailsService userDetailsService() {
-        return username ->  userRepository.findByUsernameWithRoles(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Username not found"));
+        return username -> userDetailsCache.get(username, key -> userRepository.findByUsernameWithRoles(key)
+                .map(UserPrincipal::from)
+                .orElseThrow(() -> new UsernameNotFoundException("Username not found")));
     }
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int threads = passwordEncoderThreads > 0
+                ? passwordEncoderThreads
+                : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(),
+                threads,
+                passwordEncoderQueueCapacity,
+                passwordEncoderTimeout,
+                meterRegistry);
     }
 
     @Bean
@@ -3,10 +3,12 @@ package music.configuration;
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@ConditionalOnProperty(name = "mediaStorage.type", havingValue = "cloudinary", matchIfMissing = true)
 public class CloudinaryConfig {
     @Value("${CLOUDINARY_CLOUD_NAME}")
     private String cloudName;
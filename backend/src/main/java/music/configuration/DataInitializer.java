@@ -1,20 +1,48 @@
 package music.configuration;
 
-import music.model.User;
-import music.repository.UserRepository;
+import music.repository.SongListingRepository;
+import music.security.UserDetailsCache;
 import lombok.RequiredArgsConstructor;
-import org.springframework.boot.CommandLineRunner;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 @Component
 @RequiredArgsConstructor
-public class DataInitializer implements CommandLineRunner {
-    private final PasswordEncoder passwordEncoder;
-    private final UserRepository userRepository;
+@Slf4j
+public class DataInitializer {
+    private static final String SELECT_USERS_WITHOUT_PASSWORD =
+            "SELECT id, username FROM user " +
+            "WHERE (password IS NULL OR password = '') AND id > ? " +
+            "ORDER BY id LIMIT ?";
+    private static final String UPDATE_PASSWORD =
+            "UPDATE user SET password = ? " +
+            "WHERE id = ? AND (password IS NULL OR password = '')";
+    private static final String INSERT_MISSING_SONG_LISTINGS = SongListingRepository.REFRESH +
+            "AND s.status = 'READY' " +
+            "AND NOT EXISTS (SELECT 1 FROM song_listing l WHERE l.song_id = s.id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserDetailsCache userDetailsCache;
+
+    @Value("${dataInitializer.batchSize}")
+    private int batchSize;
+
+    private record PendingUser(long id, String username) {
+    }
 
     /**
      * Initializes user passwords for accounts that have empty or null passwords.
@@ -27,14 +55,73 @@ public class DataInitializer implements CommandLineRunner {
      * - Other accounts:
      *   username: ${username}
      *   password: ${username}
+     *
+     * Runs in the background once the application is ready. Users are read in keyset pages,
+     * hashed in parallel and written back with one JDBC batch per page,
+     * so an interrupted run simply resumes with the users that still have no password.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initializePasswords() {
+        Thread thread = new Thread(this::backfillPasswords, "password-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Builds the song_listing rows of songs that have none, e.g. songs inserted by initdb.sql
+     * or written before the table existed. Catalog writes keep existing rows current.
      */
-    @Transactional
-    @Override
-    public void run(String... args) {
-        List<User> usersWithEmptyPasswords = userRepository.findByPasswordIsNullOrPasswordIsEmpty();
-        if (!usersWithEmptyPasswords.isEmpty()) {
-            usersWithEmptyPasswords.forEach(user -> user.setPassword(passwordEncoder.encode(user.getUsername())));
-            userRepository.saveAll(usersWithEmptyPasswords);
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void initializeSongListings() {
+        int inserted = jdbcTemplate.update(INSERT_MISSING_SONG_LISTINGS);
+        if (inserted > 0) {
+            log.info("Song listing backfill: {} songs added", inserted);
+        }
+    }
+
+    private void backfillPasswords() {
+        // Not the request-facing encoder: the backfill must neither compete with logins nor be rejected
+        PasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+
+        long lastId = 0;
+        long updated = 0;
+        try {
+            while (true) {
+                List<PendingUser> users = jdbcTemplate.query(SELECT_USERS_WITHOUT_PASSWORD,
+                        (rs, rowNum) -> new PendingUser(rs.getLong("id"), rs.getString("username")),
+                        lastId, batchSize);
+                if (users.isEmpty()) {
+                    break;
+                }
+
+                List<Future<String>> hashes = users.stream()
+                        .map(user -> executor.submit(() -> passwordEncoder.encode(user.username())))
+                        .toList();
+
+                List<Object[]> batchArgs = new ArrayList<>(users.size());
+                for (int i = 0; i < users.size(); i++) {
+                    batchArgs.add(new Object[]{hashes.get(i).get(), users.get(i).id()});
+                }
+
+                jdbcTemplate.batchUpdate(UPDATE_PASSWORD, batchArgs);
+                users.forEach(user -> userDetailsCache.evict(user.username()));
+
+                updated += users.size();
+                lastId = users.get(users.size() - 1).id();
+                log.info("Password backfill: {} users updated (last id {})", updated, lastId);
+            }
+            if (updated > 0) {
+                log.info("Password backfill finished, {} users updated", updated);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Password backfill interrupted after {} users, it will resume on next startup", updated);
+        } catch (Exception e) {
+            log.error("Password backfill failed after {} users, it will resume on next startup", updated, e);
+        } finally {
+            executor.shutdownNow();
         }
     }
 }
@@ -0,0 +1,30 @@
+package music.configuration;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import music.storage.LocalMediaStorage;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves media kept by {@link LocalMediaStorage} under /media/**. File names are content hashes,
+ * so responses are cacheable forever, and their extensions give the content type.
+ */
+@Configuration
+@ConditionalOnProperty(name = "mediaStorage.type", havingValue = "local")
+@RequiredArgsConstructor
+public class LocalMediaConfig implements WebMvcConfigurer {
+    private final LocalMediaStorage localMediaStorage;
+
+    @Override
+    public void addResourceHandlers(@NonNull ResourceHandlerRegistry registry) {
+        registry.addResourceHandler("/media/**")
+                .addResourceLocations("file:" + localMediaStorage.getRoot() + "/")
+                .setCacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable());
+    }
+}
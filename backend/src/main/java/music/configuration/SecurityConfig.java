@@ -22,7 +22,7 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
     private final PreFilter preFilter;
     private final AuthenticationProvider provider;
-    private final String[] WHITE_LIST = {"/api/auth/**", "/api/song/**", "/api/genre/**", "/api/album/**", "/api/artist/**"};
+    private final String[] WHITE_LIST = {"/api/auth/**", "/api/song/**", "/api/genre/**", "/api/album/**", "/api/artist/**", "/api/search/**", "/api/home", "/media/**"};
 
     @Bean
     public SecurityFilterChain securityFilterChain(@NonNull HttpSecurity http) throws Exception {
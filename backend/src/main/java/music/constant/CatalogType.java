@@ -0,0 +1,7 @@
+package music.constant;
+
+public enum CatalogType {
+    SONG,
+    ARTIST,
+    ALBUM
+}
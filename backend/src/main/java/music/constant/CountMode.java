@@ -0,0 +1,13 @@
+package music.constant;
+
+/**
+ * How the total of a paged search is computed.
+ * EXACT: COUNT query on every request (default).
+ * CACHED: COUNT result kept for a short time per filter, totalPages may be slightly stale.
+ * NONE: no COUNT at all, only hasNext is known (totalPages = -1).
+ */
+public enum CountMode {
+    EXACT,
+    CACHED,
+    NONE
+}
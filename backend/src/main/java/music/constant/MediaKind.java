@@ -0,0 +1,9 @@
+package music.constant;
+
+/**
+ * Kind of media a {@link music.storage.MediaStorage} stores, backends may keep them apart.
+ */
+public enum MediaKind {
+    IMAGE,
+    AUDIO
+}
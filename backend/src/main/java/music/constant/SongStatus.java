@@ -0,0 +1,13 @@
+package music.constant;
+
+/**
+ * Where a song's media is in ingestion.
+ * PROCESSING: files accepted, waiting for or being uploaded to storage.
+ * READY: media uploaded, the song is playable.
+ * FAILED: the last upload failed, it can be retried while the staged files are kept.
+ */
+public enum SongStatus {
+    PROCESSING,
+    READY,
+    FAILED
+}
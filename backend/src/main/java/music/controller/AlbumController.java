@@ -1,5 +1,6 @@
 package music.controller;
 
+import music.constant.CountMode;
 import music.dto.request.AlbumRequest;
 import music.dto.request.UpdateAlbumRequest;
 import music.dto.response.AlbumResponse;
@@ -7,9 +8,12 @@ import music.dto.response.ApiResponse;
 import music.service.AlbumService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -30,10 +34,18 @@ public class AlbumController {
     }
 
     @GetMapping("/{albumId}")
-    public ApiResponse<AlbumResponse> getAlbum(@PathVariable Long albumId) {
-        return new ApiResponse<>(HttpStatus.OK.value(),
-                "Get album success",
-                albumService.getAlbum(albumId));
+    public ResponseEntity<ApiResponse<AlbumResponse>> getAlbum(@PathVariable Long albumId, WebRequest request) {
+        String eTag = albumService.getAlbumETag(albumId);
+        // Sets the 304 status and ETag header when If-None-Match matches
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(new ApiResponse<>(HttpStatus.OK.value(),
+                        "Get album success",
+                        albumService.getAlbum(albumId)));
     }
 
     @PutMapping("/{albumId}")
@@ -58,7 +70,13 @@ public class AlbumController {
     public ApiResponse<?> getAllAlbums(
             @RequestParam(defaultValue = "0", required = false) int pageNo,
             @RequestParam(defaultValue = "20", required = false) int pageSize,
-            @RequestParam(defaultValue = "id:desc", required = false) String sortBy) {
+            @RequestParam(defaultValue = "id:desc", required = false) String sortBy,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return new ApiResponse<>(HttpStatus.OK.value(),
+                    "Get all albums success",
+                    albumService.getAllAlbumsByCursor(cursor, pageSize, sortBy));
+        }
         return new ApiResponse<>(HttpStatus.OK.value(),
                 "Get all albums success",
                 albumService.getAllAlbums(pageNo, pageSize, sortBy));
@@ -69,10 +87,11 @@ public class AlbumController {
             @RequestParam(defaultValue = "0", required = false) int pageNo,
             @RequestParam(defaultValue = "20", required = false) int pageSize,
             @RequestParam(defaultValue = "id:desc", required = false) String sortBy,
-            @RequestParam String albumName) {
+            @RequestParam String albumName,
+            @RequestParam(defaultValue = "EXACT", required = false) CountMode countMode) {
         return new ApiResponse<>(HttpStatus.OK.value(),
                 "Get albums by name success",
-                albumService.getAlbumsByName(pageNo, pageSize, sortBy, albumName));
+                albumService.getAlbumsByName(pageNo, pageSize, sortBy, albumName, countMode));
     }
 
     @GetMapping("/specification")
@@ -80,9 +99,10 @@ public class AlbumController {
             @RequestParam(defaultValue = "0", required = false) int pageNo,
             @RequestParam(defaultValue = "10", required = false) int pageSize,
             @RequestParam(defaultValue = "id:desc", required = false) String sortBy,
-            @RequestParam(defaultValue = "id!=0", required = false) String search) {
+            @RequestParam(defaultValue = "id!=0", required = false) String search,
+            @RequestParam(defaultValue = "EXACT", required = false) CountMode countMode) {
         return new ApiResponse<>(HttpStatus.OK.value(),
                 "Specification Search",
-                albumService.sortAndSpecificationSearch(pageNo, pageSize, sortBy, search));
+                albumService.sortAndSpecificationSearch(pageNo, pageSize, sortBy, search, countMode));
     }
 }
\ No newline at end of file
@@ -1,14 +1,19 @@
 package music.controller;
 
+import music.constant.CountMode;
 import music.dto.request.*;
 import music.dto.response.ArtistResponse;
 import music.dto.response.ApiResponse;
+import music.dto.response.SongStatusResponse;
 import music.service.ArtistService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -30,10 +35,18 @@ public class ArtistController {
     }
 
     @GetMapping("/{artistId}")
-    public ApiResponse<ArtistResponse> getArtist(@PathVariable Long artistId) {
-        return new ApiResponse<>(HttpStatus.OK.value(),
-                "Get artist success",
-                artistService.getArtist(artistId));
+    public ResponseEntity<ApiResponse<ArtistResponse>> getArtist(@PathVariable Long artistId, WebRequest request) {
+        String eTag = artistService.getArtistETag(artistId);
+        // Sets the 304 status and ETag header when If-None-Match matches
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(new ApiResponse<>(HttpStatus.OK.value(),
+                        "Get artist success",
+                        artistService.getArtist(artistId)));
     }
 
     @PutMapping("/{artistId}")
@@ -59,8 +72,8 @@ public class ArtistController {
     public ApiResponse<Long> addMySong(@Valid @RequestPart SongRequest songRequest,
                                        @RequestPart MultipartFile imageFile,
                                        @RequestPart MultipartFile songFile) throws IOException {
-        return new ApiResponse<>(HttpStatus.CREATED.value(),
-                "Add song to artist success",
+        return new ApiResponse<>(HttpStatus.ACCEPTED.value(),
+                "Add song to artist accepted, media is being uploaded",
                 artistService.addMySong(songRequest, imageFile, songFile));
     }
 
@@ -112,6 +125,22 @@ public class ArtistController {
                 artistService.updateMyArtistPage(request, imageFile));
     }
 
+    @GetMapping("/song/{songId}/status")
+    @PreAuthorize("hasRole('ARTIST')")
+    public ApiResponse<SongStatusResponse> getMySongStatus(@PathVariable Long songId) {
+        return new ApiResponse<>(HttpStatus.OK.value(),
+                "Get song status success",
+                artistService.getMySongStatus(songId));
+    }
+
+    @PostMapping("/song/{songId}/retry")
+    @PreAuthorize("hasRole('ARTIST')")
+    public ApiResponse<Long> retryMySongIngestion(@PathVariable Long songId) {
+        return new ApiResponse<>(HttpStatus.ACCEPTED.value(),
+                "Song media upload retried",
+                artistService.retryMySongIngestion(songId));
+    }
+
     @DeleteMapping("/song/{songId}")
     @PreAuthorize("hasRole('ARTIST')")
     public ApiResponse<Long> deleteMySong(@PathVariable Long songId) {
@@ -141,7 +170,13 @@ public class ArtistController {
     public ApiResponse<?> getAllArtists(
             @RequestParam(defaultValue = "0", required = false) int pageNo,
             @RequestParam(defaultValue = "20", required = false) int pageSize,
-            @RequestParam(defaultValue = "followers:desc", required = false) String sortBy) {
+            @RequestParam(defaultValue = "followers:desc", required = false) String sortBy,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return new ApiResponse<>(HttpStatus.OK.value(),
+                    "Get all artists success",
+                    artistService.getAllArtistsByCursor(cursor, pageSize, sortBy));
+        }
         return new ApiResponse<>(HttpStatus.OK.value(),
                 "Get all artists success",
                 artistService.getAllArtists(pageNo, pageSize, sortBy));
@@ -152,10 +187,11 @@ public class ArtistController {
             @RequestParam(defaultValue = "0", required = false) int pageNo,
             @RequestParam(defaultValue = "20", required = false) int pageSize,
             @RequestParam(defaultValue = "followers:desc", required = false) String sortBy,
-            @RequestParam String artistName) {
+            @RequestParam String artistName,
+            @RequestParam(defaultValue = "EXACT", required = false) CountMode countMode) {
         return new ApiResponse<>(HttpStatus.OK.value(),
                 "Get artists by name success",
-                artistService.getArtistsByName(pageNo, pageSize, sortBy, artistName));
+                artistService.getArtistsByName(pageNo, pageSize, sortBy, artistName, countMode));
     }
 
     @GetMapping("/specification")
@@ -163,10 +199,11 @@ public class ArtistController {
             @RequestParam(defaultValue = "0", required = false) int pageNo,
             @RequestParam(defaultValue = "10", required = false) int pageSize,
             @RequestParam(defaultValue = "followers:desc", required = false) String sortBy,
-            @RequestParam(defaultValue = "id!=0", required = false) String search) {
+            @RequestParam(defaultValue = "id!=0", required = false) String search,
+            @RequestParam(defaultValue = "EXACT", required = false) CountMode countMode) {
         return new ApiResponse<>(HttpStatus.OK.value(),
                 "Specification Search",
-                artistService.sortAndSpecificationSearch(pageNo, pageSize, sortBy, search));
+                artistService.sortAndSpecificationSearch(pageNo, pageSize, sortBy, search, countMode));
     }
 
     @GetMapping("/top-artists")
@@ -19,4 +19,11 @@ public class GenreController {
                 "Get all genres success",
                 genreService.getAllGenres());
     }
+
+    @GetMapping("/facets")
+    public ApiResponse<?> getGenreFacets(@RequestParam(required = false) String songName) {
+        return new ApiResponse<>(HttpStatus.OK.value(),
+                "Get genre facets success",
+                genreService.getGenreFacets(songName));
+    }
 }
@@ -0,0 +1,23 @@
+package music.controller;
+
+import music.service.HomeService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/home")
+@RequiredArgsConstructor
+public class HomeController {
+
+    private final HomeService homeService;
+
+    // Body is the pre-serialized ApiResponse JSON
+    @GetMapping
+    public ResponseEntity<byte[]> getHomeFeed() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(homeService.getHomeFeed());
+    }
+}
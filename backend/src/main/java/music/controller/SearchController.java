@@ -0,0 +1,24 @@
+package music.controller;
+
+import music.service.SearchService;
+import music.dto.response.ApiResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchService searchService;
+
+    @GetMapping("/suggest")
+    public ApiResponse<?> suggest(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "5", required = false) int limit) {
+        return new ApiResponse<>(HttpStatus.OK.value(),
+                "Get suggestions success",
+                searchService.suggest(prefix, limit));
+    }
+}
@@ -1,40 +1,100 @@
 package music.controller;
 
+import music.constant.CountMode;
 import music.dto.request.SongRequest;
 import music.dto.request.UpdateSongRequest;
 import music.dto.response.ApiResponse;
 import music.dto.response.SongResponse;
+import music.dto.response.SongStatusResponse;
+import music.service.AudioStreamService;
+import music.service.HlsService;
 import music.service.SongService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/song")
 @RequiredArgsConstructor
 public class SongController {
     private final SongService songService;
+    private final AudioStreamService audioStreamService;
+    private final HlsService hlsService;
 
     @PostMapping("")
     @PreAuthorize("hasRole('ADMIN')")
     public ApiResponse<Long> addSong(@Valid @RequestPart SongRequest request,
                                      @RequestPart MultipartFile imageFile,
                                      @RequestPart MultipartFile songFile) throws IOException {
-        return new ApiResponse<>(HttpStatus.CREATED.value(),
-                "Add song success",
+        return new ApiResponse<>(HttpStatus.ACCEPTED.value(),
+                "Add song accepted, media is being uploaded",
                 songService.addSong(request, imageFile, songFile));
     }
 
-    @GetMapping("/{songId}")
-    public ApiResponse<SongResponse> getSong(@PathVariable Long songId) {
+    @GetMapping("/{songId}/stream")
+    public void streamSong(@PathVariable Long songId,
+                           HttpServletRequest request,
+                           HttpServletResponse response) throws IOException {
+        audioStreamService.stream(songId, request, response);
+    }
+
+    @GetMapping("/{songId}/hls/playlist.m3u8")
+    public ResponseEntity<String> getHlsPlaylist(@PathVariable Long songId) throws IOException {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/vnd.apple.mpegurl"))
+                .cacheControl(CacheControl.noCache())
+                .body(hlsService.getPlaylist(songId));
+    }
+
+    @GetMapping("/{songId}/hls/{sequence}.mp3")
+    public void getHlsSegment(@PathVariable Long songId,
+                              @PathVariable int sequence,
+                              @RequestParam String v,
+                              HttpServletResponse response) throws IOException {
+        hlsService.writeSegment(songId, sequence, v, response);
+    }
+
+    @GetMapping("/{songId}/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<SongStatusResponse> getSongStatus(@PathVariable Long songId) {
         return new ApiResponse<>(HttpStatus.OK.value(),
-                "Get song success",
-                songService.getSong(songId));
+                "Get song status success",
+                songService.getSongStatus(songId));
+    }
+
+    @PostMapping("/{songId}/retry")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ApiResponse<Long> retrySongIngestion(@PathVariable Long songId) {
+        return new ApiResponse<>(HttpStatus.ACCEPTED.value(),
+                "Song media upload retried",
+                songService.retrySongIngestion(songId));
+    }
+
+    @GetMapping("/{songId}")
+    public ResponseEntity<ApiResponse<SongResponse>> getSong(@PathVariable Long songId, WebRequest request) {
+        String eTag = songService.getSongETag(songId);
+        // Sets the 304 status and ETag header when If-None-Match matches
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache())
+                .body(new ApiResponse<>(HttpStatus.OK.value(),
+                        "Get song success",
+                        songService.getSong(songId)));
     }
 
     @PutMapping("/{songId}")
@@ -56,11 +116,33 @@ public class SongController {
                 songService.deleteSong(songId));
     }
 
+    @PostMapping("/{songId}/like")
+    @PreAuthorize("isAuthenticated()")
+    public ApiResponse<Long> likeSong(@PathVariable Long songId) {
+        return new ApiResponse<>(HttpStatus.OK.value(),
+                "Like song success",
+                songService.likeSong(songId));
+    }
+
+    @DeleteMapping("/{songId}/like")
+    @PreAuthorize("isAuthenticated()")
+    public ApiResponse<Long> unlikeSong(@PathVariable Long songId) {
+        return new ApiResponse<>(HttpStatus.OK.value(),
+                "Unlike song success",
+                songService.unlikeSong(songId));
+    }
+
     @GetMapping("/all")
     public ApiResponse<?> getAllSongs(
             @RequestParam(defaultValue = "0", required = false) int pageNo,
             @RequestParam(defaultValue = "20", required = false) int pageSize,
-            @RequestParam(defaultValue = "likeCount:desc", required = false) String sortBy) {
+            @RequestParam(defaultValue = "likeCount:desc", required = false) String sortBy,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return new ApiResponse<>(HttpStatus.OK.value(),
+                    "Get all songs success",
+                    songService.getAllSongsByCursor(cursor, pageSize, sortBy));
+        }
         return new ApiResponse<>(HttpStatus.OK.value(),
                 "Get all songs success",
                 songService.getAllSongs(pageNo, pageSize, sortBy));
@@ -71,10 +153,11 @@ public class SongController {
             @RequestParam(defaultValue = "0", required = false) int pageNo,
             @RequestParam(defaultValue = "20", required = false) int pageSize,
             @RequestParam(defaultValue = "likeCount:desc", required = false) String sortBy,
-            @RequestParam String songName) {
+            @RequestParam String songName,
+            @RequestParam(defaultValue = "EXACT", required = false) CountMode countMode) {
         return new ApiResponse<>(HttpStatus.OK.value(),
                 "Get songs by name success",
-                songService.getSongsByName(pageNo, pageSize, sortBy, songName));
+                songService.getSongsByName(pageNo, pageSize, sortBy, songName, countMode));
     }
 
     @GetMapping("/find-by-genre")
@@ -82,28 +165,49 @@ public class SongController {
             @RequestParam(defaultValue = "0", required = false) int pageNo,
             @RequestParam(defaultValue = "20", required = false) int pageSize,
             @RequestParam(defaultValue = "likeCount:desc", required = false) String sortBy,
-            @RequestParam Integer genreId) {
+            @RequestParam Integer genreId,
+            @RequestParam(required = false) String cursor) {
+        if (cursor != null) {
+            return new ApiResponse<>(HttpStatus.OK.value(),
+                    "Get songs by genre success",
+                    songService.getSongsByGenreByCursor(cursor, pageSize, sortBy, genreId));
+        }
         return new ApiResponse<>(HttpStatus.OK.value(),
                 "Get songs by genre success",
                 songService.getSongsByGenre(pageNo, pageSize, sortBy, genreId));
     }
 
+    @GetMapping("/find-by-genres")
+    public ApiResponse<?> getSongsByGenres(
+            @RequestParam(defaultValue = "0", required = false) int pageNo,
+            @RequestParam(defaultValue = "20", required = false) int pageSize,
+            @RequestParam(defaultValue = "likeCount:desc", required = false) String sortBy,
+            @RequestParam List<Integer> genreIds,
+            @RequestParam(defaultValue = "false", required = false) boolean matchAll,
+            @RequestParam(required = false) String songName) {
+        return new ApiResponse<>(HttpStatus.OK.value(),
+                "Get songs by genres success",
+                songService.getSongsByGenres(pageNo, pageSize, sortBy, genreIds, matchAll, songName));
+    }
+
     @GetMapping("/specification")
     public ApiResponse<?> sortAndSpecificationSearch(
             @RequestParam(defaultValue = "0", required = false) int pageNo,
             @RequestParam(defaultValue = "10", required = false) int pageSize,
             @RequestParam(defaultValue = "likeCount:desc", required = false) String sortBy,
-            @RequestParam(defaultValue = "id!=0", required = false) String search) {
+            @RequestParam(defaultValue = "id!=0", required = false) String search,
+            @RequestParam(defaultValue = "EXACT", required = false) CountMode countMode) {
         return new ApiResponse<>(HttpStatus.OK.value(),
                 "Specification Search",
-                songService.sortAndSpecificationSearch(pageNo, pageSize, sortBy, search));
+                songService.sortAndSpecificationSearch(pageNo, pageSize, sortBy, search, countMode));
     }
 
     @GetMapping("/featured-songs")
-    public ApiResponse<?> getFeaturedSongs() {
+    public ApiResponse<?> getFeaturedSongs(
+            @RequestParam(defaultValue = "false", required = false) boolean weighted) {
         return new ApiResponse<>(HttpStatus.OK.value(),
                 "Get Featured Songs success",
-                songService.getFeaturedSongs());
+                songService.getFeaturedSongs(weighted));
     }
 
     @GetMapping("/made-for-you-songs")
@@ -1,5 +1,6 @@
 package music.controller;
 
+import music.constant.CountMode;
 import music.dto.request.UpdateInfoRequest;
 import music.dto.request.UserRequest;
 import music.dto.response.ApiResponse;
@@ -117,10 +118,11 @@ public class UserController {
             @RequestParam(defaultValue = "0", required = false) int pageNo,
             @RequestParam(defaultValue = "10", required = false) int pageSize,
             @RequestParam(defaultValue = "id:asc", required = false) String sortBy,
-            @RequestParam(defaultValue = "id!=0", required = false) String search) {
+            @RequestParam(defaultValue = "id!=0", required = false) String search,
+            @RequestParam(defaultValue = "EXACT", required = false) CountMode countMode) {
         return new ApiResponse<>(HttpStatus.OK.value(),
                 "Specification Search",
-                userService.sortAndSpecificationSearch(pageNo, pageSize, sortBy, search));
+                userService.sortAndSpecificationSearch(pageNo, pageSize, sortBy, search, countMode));
     }
 }
 
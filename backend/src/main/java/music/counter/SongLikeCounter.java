@@ -0,0 +1,274 @@
+package music.counter;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import music.event.SongLikesFlushedEvent;
+import music.model.SongLikeDelta;
+import music.repository.SongLikeDeltaRepository;
+import music.repository.SongLikeRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Write-behind like counts.
+ *
+ * A like or unlike only writes rows nobody else contends on: the user's song_like row and a
+ * song_like_delta journal row, in one transaction. The count change then goes to a LongAdder
+ * per song, and the summed changes reach song.like_count in one batched update per flush, so a
+ * song getting thousands of likes a second costs one row lock per flush instead of one per like.
+ *
+ * Changes are grouped into epochs: a flush seals the current epoch, then applies its sums and
+ * deletes its journal rows in one transaction. A failed epoch is retried on the next flush,
+ * journal rows left behind by a crash are replayed at startup.
+ *
+ * A like counts its change into the epoch its journal row was written with, even when a flush
+ * sealed it meanwhile: the flush waits for the likes still recording into the sealed epoch before
+ * summing it, likes never wait for a flush.
+ */
+@Component
+@Slf4j
+public class SongLikeCounter {
+    private static final String ADD_LIKE_COUNT = "UPDATE song SET like_count = like_count + ? WHERE id = ?";
+    private static final String ADD_LISTING_LIKE_COUNT =
+            "UPDATE song_listing SET like_count = like_count + ? WHERE song_id = ?";
+
+    private final SongLikeRepository songLikeRepository;
+    private final SongLikeDeltaRepository songLikeDeltaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final class Epoch {
+        final long id;
+        final ConcurrentMap<Long, LongAdder> counts = new ConcurrentHashMap<>();
+        // Likes between choosing this epoch and counting their change
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        Epoch(long id) {
+            this.id = id;
+        }
+    }
+
+    private volatile Epoch current = new Epoch(System.currentTimeMillis());
+    // Sealed epochs not written to the song table yet, oldest first
+    private final ConcurrentSkipListMap<Long, Map<Long, LongAdder>> sealed = new ConcurrentSkipListMap<>();
+
+    public SongLikeCounter(SongLikeRepository songLikeRepository,
+                           SongLikeDeltaRepository songLikeDeltaRepository,
+                           JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           ApplicationEventPublisher eventPublisher) {
+        this.songLikeRepository = songLikeRepository;
+        this.songLikeDeltaRepository = songLikeDeltaRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Assumes a single instance: another instance's unflushed journal rows would be applied twice
+    @PostConstruct
+    void replay() {
+        Integer replayed = transactionTemplate.execute(status -> {
+            List<Object[]> rows = songLikeDeltaRepository.sumDeltasBySongId();
+            List<Object[]> batchArgs = rows.stream()
+                    .map(row -> new Object[]{((Number) row[1]).longValue(), row[0]})
+                    .toList();
+            jdbcTemplate.batchUpdate(ADD_LIKE_COUNT, batchArgs);
+            jdbcTemplate.batchUpdate(ADD_LISTING_LIKE_COUNT, batchArgs);
+            songLikeDeltaRepository.deleteAllInBatch();
+            return rows.size();
+        });
+        if (replayed != null && replayed > 0) {
+            log.info("Replayed unflushed likes of {} songs", replayed);
+        }
+    }
+
+    /**
+     * Records the user's like.
+     *
+     * @return false if the user already liked the song
+     */
+    public boolean like(Long userId, Long songId) {
+        return record(songId, 1, () -> songLikeRepository.insertIfAbsent(userId, songId) > 0);
+    }
+
+    /**
+     * Removes the user's like.
+     *
+     * @return false if the user had not liked the song
+     */
+    public boolean unlike(Long userId, Long songId) {
+        return record(songId, -1, () -> songLikeRepository.deleteByUserIdAndSongId(userId, songId) > 0);
+    }
+
+    /**
+     * Removes every like of a user along with the user, run by userDeleter in the same transaction,
+     * so the cascade from user to song_like finds no like left to drop without counting it.
+     */
+    public void unlikeAll(Long userId, Runnable userDeleter) {
+        Epoch recording = enter();
+        try {
+            List<Long> songIds = transactionTemplate.execute(status -> {
+                List<Long> liked = songLikeRepository.findAllSongIdsByUserIdForUpdate(userId);
+                songLikeRepository.deleteAllByUserId(userId);
+                songLikeDeltaRepository.saveAll(liked.stream()
+                        .map(songId -> SongLikeDelta.builder()
+                                .songId(songId)
+                                .delta(-1)
+                                .epoch(recording.id)
+                                .build())
+                        .toList());
+                userDeleter.run();
+                return liked;
+            });
+            if (songIds != null) {
+                songIds.forEach(songId -> recording.counts.computeIfAbsent(songId, id -> new LongAdder()).add(-1));
+            }
+        } finally {
+            recording.inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Change to the song's like count not written to the song table yet.
+     */
+    public long pending(Long songId) {
+        long pending = 0;
+        Map<Long, LongAdder> currentCounts = current.counts;
+        LongAdder adder = currentCounts.get(songId);
+        if (adder != null) {
+            pending += adder.sum();
+        }
+        for (Map<Long, LongAdder> counts : sealed.values()) {
+            // A flush puts the epoch it seals here before replacing it as the current one
+            if (counts == currentCounts) {
+                continue;
+            }
+            adder = counts.get(songId);
+            if (adder != null) {
+                pending += adder.sum();
+            }
+        }
+        return pending;
+    }
+
+    @Scheduled(fixedDelayString = "${songLikes.flushInterval}")
+    public synchronized void flush() {
+        Epoch sealing = current;
+        // Sealed before it is replaced, so pending() always finds its counts in one of the two
+        sealed.put(sealing.id, sealing.counts);
+        current = new Epoch(Math.max(sealing.id + 1, System.currentTimeMillis()));
+        // Likes that chose the sealed epoch finish their transaction and count into it
+        while (sealing.inFlight.get() > 0) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        if (sealing.counts.isEmpty()) {
+            sealed.remove(sealing.id);
+        }
+
+        for (Map.Entry<Long, Map<Long, LongAdder>> sealedEpoch : sealed.entrySet()) {
+            Map<Long, Long> deltas = new HashMap<>();
+            sealedEpoch.getValue().forEach((songId, adder) -> {
+                long delta = adder.sum();
+                if (delta != 0) {
+                    deltas.put(songId, delta);
+                }
+            });
+
+            try {
+                write(sealedEpoch.getKey(), deltas);
+            } catch (DataAccessException | TransactionException e) {
+                // Keep the epoch and its journal rows, later epochs wait for it
+                log.warn("Failed to flush likes of epoch {}, retrying on next flush", sealedEpoch.getKey(), e);
+                return;
+            }
+            if (!deltas.isEmpty()) {
+                eventPublisher.publishEvent(new SongLikesFlushedEvent(Map.copyOf(deltas)));
+            }
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private boolean record(Long songId, int delta, BooleanSupplier likeWriter) {
+        Epoch recording = enter();
+        try {
+            Boolean changed = transactionTemplate.execute(status -> {
+                if (!likeWriter.getAsBoolean()) {
+                    return false;
+                }
+                songLikeDeltaRepository.save(SongLikeDelta.builder()
+                        .songId(songId)
+                        .delta(delta)
+                        .epoch(recording.id)
+                        .build());
+                return true;
+            });
+            if (Boolean.TRUE.equals(changed)) {
+                recording.counts.computeIfAbsent(songId, id -> new LongAdder()).add(delta);
+                return true;
+            }
+            return false;
+        } finally {
+            recording.inFlight.decrementAndGet();
+        }
+    }
+
+    // Joins the current epoch. A flush that sealed it before the join is seen by the check, a
+    // flush sealing it after the join sees the in-flight count: either way no change is missed.
+    private Epoch enter() {
+        while (true) {
+            Epoch epoch = current;
+            epoch.inFlight.incrementAndGet();
+            if (epoch == current) {
+                return epoch;
+            }
+            epoch.inFlight.decrementAndGet();
+        }
+    }
+
+    private void write(long sealedEpoch, Map<Long, Long> deltas) {
+        List<Object[]> batchArgs = deltas.entrySet().stream()
+                // Same lock order in every flush
+                .sorted(Map.Entry.comparingByKey())
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!batchArgs.isEmpty()) {
+                jdbcTemplate.batchUpdate(ADD_LIKE_COUNT, batchArgs);
+                jdbcTemplate.batchUpdate(ADD_LISTING_LIKE_COUNT, batchArgs);
+            }
+            songLikeDeltaRepository.deleteAllByEpoch(sealedEpoch);
+            // Dropped from pending() right at commit, a reader seeing the new counts and still the
+            // sealed epoch would count its likes twice
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sealed.remove(sealedEpoch);
+                }
+            });
+        });
+    }
+}
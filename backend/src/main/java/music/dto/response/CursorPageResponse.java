@@ -0,0 +1,15 @@
+package music.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.Serializable;
+
+@Getter
+@Builder
+public class CursorPageResponse<T> implements Serializable {
+    private int pageSize;
+    // Opaque token for the next page, null on the last page
+    private String nextCursor;
+    private T items;
+}
@@ -0,0 +1,15 @@
+package music.dto.response;
+
+import music.constant.GenreName;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+public class GenreFacetResponse {
+    private Integer id;
+    private GenreName name;
+    private int songCount;
+}
@@ -0,0 +1,18 @@
+package music.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Date;
+import java.util.List;
+
+@Getter
+@Builder
+public class HomeFeedResponse {
+    private List<?> featuredSongs;
+    private List<?> madeForYouSongs;
+    private List<?> trendingSongs;
+    private List<?> topArtists;
+    private List<?> genres;
+    private Date generatedAt;
+}
@@ -10,6 +10,8 @@ import java.io.Serializable;
 public class PageResponse<T> implements Serializable {
     private int pageNo;
     private int pageSize;
+    // -1 when the total was not counted
     private int totalPages;
+    private Boolean hasNext;
     private T items;
 }
@@ -17,4 +17,7 @@ public class SearchSongResponse implements Serializable {
     private Long likeCount;
     private List<Long> artistIds;
     private List<String> artistNames;
+    private List<Integer> genreIds;
+    private Long albumId;
+    private String albumName;
 }
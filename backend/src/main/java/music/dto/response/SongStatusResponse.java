@@ -0,0 +1,15 @@
+package music.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+import music.constant.SongStatus;
+
+import java.io.Serializable;
+
+@Getter
+@Builder
+public class SongStatusResponse implements Serializable {
+    private Long id;
+    private SongStatus status;
+    private String failureReason;
+}
@@ -0,0 +1,16 @@
+package music.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+public class SuggestResponse {
+    private List<SuggestionResponse> songs;
+    private List<SuggestionResponse> artists;
+    private List<SuggestionResponse> albums;
+}
@@ -0,0 +1,13 @@
+package music.dto.response;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+public class SuggestionResponse {
+    private Long id;
+    private String name;
+}
@@ -0,0 +1,28 @@
+package music.event;
+
+import music.constant.CatalogType;
+
+/**
+ * Published by the catalog services when a song, artist or album is created, renamed or deleted.
+ * In-memory catalog structures listen to it after the transaction commits.
+ *
+ * @param popularity like count for songs and albums, followers for artists; null when unchanged
+ */
+public record CatalogChangedEvent(CatalogType type,
+                                  Long id,
+                                  String name,
+                                  Long popularity,
+                                  boolean deleted) {
+
+    public static CatalogChangedEvent saved(CatalogType type, Long id, String name) {
+        return new CatalogChangedEvent(type, id, name, null, false);
+    }
+
+    public static CatalogChangedEvent saved(CatalogType type, Long id, String name, long popularity) {
+        return new CatalogChangedEvent(type, id, name, popularity, false);
+    }
+
+    public static CatalogChangedEvent deleted(CatalogType type, Long id) {
+        return new CatalogChangedEvent(type, id, null, null, true);
+    }
+}
@@ -0,0 +1,21 @@
+package music.event;
+
+import music.model.Genre;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Published by the song services when a song is created or its genres change.
+ *
+ * @param genreIds all genres the song belongs to after the change
+ */
+public record SongGenresChangedEvent(Long songId, Set<Integer> genreIds) {
+
+    public static SongGenresChangedEvent of(Long songId, Collection<Genre> genres) {
+        return new SongGenresChangedEvent(songId, genres.stream()
+                .map(Genre::getId)
+                .collect(Collectors.toSet()));
+    }
+}
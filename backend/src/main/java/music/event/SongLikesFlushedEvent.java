@@ -0,0 +1,11 @@
+package music.event;
+
+import java.util.Map;
+
+/**
+ * Published once a batch of like count changes has been written to song.like_count.
+ *
+ * @param deltas song id -> change applied to its like count
+ */
+public record SongLikesFlushedEvent(Map<Long, Long> deltas) {
+}
@@ -1,5 +1,6 @@
 package music.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -76,6 +77,21 @@ public class GlobalExceptionHandler {
         return createErrorResponse(HttpStatus.CONFLICT, e.getMessage(), request);
     }
 
+    @ExceptionHandler(ServiceBusyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleServiceBusyException(ServiceBusyException e, WebRequest request) {
+        return createErrorResponse(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), request);
+    }
+
+    // A versioned row was changed by another request between this request's read and its write
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleOptimisticLockingFailureException(OptimisticLockingFailureException e,
+                                                                 WebRequest request) {
+        return createErrorResponse(HttpStatus.CONFLICT,
+                "The resource was modified by another request, reload it and try again", request);
+    }
+
     @ExceptionHandler(SQLIntegrityConstraintViolationException.class)
     @ResponseStatus(HttpStatus.CONFLICT)
     public ErrorResponse handleSQLIntegrityConstraintViolationException(SQLIntegrityConstraintViolationException e,
@@ -0,0 +1,19 @@
+package music.exception;
+
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException() {
+        super();
+    }
+
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+
+    public ServiceBusyException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public ServiceBusyException(Throwable cause) {
+        super(cause);
+    }
+}
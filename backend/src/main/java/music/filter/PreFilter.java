@@ -1,8 +1,11 @@
 package music.filter;
 
 import music.exception.ErrorResponse;
+import music.security.TokenRevocationStore;
+import music.security.TokenVersionRegistry;
 import music.utils.JwtUtil;
 import music.utils.TokenType;
+import music.utils.VerifiedToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.security.SignatureException;
@@ -13,11 +16,13 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -32,6 +37,11 @@ import java.util.Date;
 public class PreFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final TokenRevocationStore tokenRevocationStore;
+
+    @Value("${jwt.statelessAuthentication}")
+    private boolean statelessAuthentication;
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -48,11 +58,17 @@ public class PreFilter extends OncePerRequestFilter {
         try {
 
             final String token = authorization.substring("Bearer ".length());
-            final String username = jwtUtil.extractUsername(token, TokenType.ACCESS_TOKEN);
+            final VerifiedToken verifiedToken = jwtUtil.verify(token, TokenType.ACCESS_TOKEN);
+            final String username = verifiedToken.subject();
+
+            if (tokenRevocationStore.isRevoked(verifiedToken.familyId())) {
+                handleSecurityException(response, request, "Token is revoked");
+                return;
+            }
 
             if (StringUtils.isNotEmpty(username) && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                if (jwtUtil.isValidToken(token, TokenType.ACCESS_TOKEN, userDetails)) {
+                UserDetails userDetails = loadUserDetails(verifiedToken);
+                if (jwtUtil.isValidToken(verifiedToken, userDetails)) {
                     SecurityContext context = SecurityContextHolder.createEmptyContext();
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails,
                             null,
@@ -74,6 +90,20 @@ public class PreFilter extends OncePerRequestFilter {
         }
     }
 
+    /**
+     * Builds the principal straight from the signed claims while the token is still fresh,
+     * otherwise (stateless mode off, stale or pre-restart token) falls back to the database.
+     */
+    private UserDetails loadUserDetails(VerifiedToken verifiedToken) {
+        if (statelessAuthentication && tokenVersionRegistry.isFresh(verifiedToken)) {
+            return User.withUsername(verifiedToken.subject())
+                    .password("")
+                    .authorities(verifiedToken.authorities())
+                    .build();
+        }
+        return userDetailsService.loadUserByUsername(verifiedToken.subject());
+    }
+
     private void handleSecurityException(HttpServletResponse response,
                                          HttpServletRequest request,
                                          String message) throws IOException {
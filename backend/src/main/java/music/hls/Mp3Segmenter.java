@@ -0,0 +1,177 @@
+package music.hls;
+
+import music.model.SongHls;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cuts MPEG-1/2/2.5 audio (layers I-III) into HLS segments at frame boundaries, without decoding.
+ *
+ * Only frame headers are read: each 4-byte header gives the frame's length and sample count, the
+ * rest of the frame is skipped. A leading ID3v2 tag and anything that is not a frame (a trailing
+ * ID3v1 tag, junk) is stepped over byte by byte until the next header. The stream is only locked
+ * onto once a header is followed, one frame length later, by a second one of the same version,
+ * layer and sample rate, so a sync pattern inside a tag or junk is not taken for the first frame.
+ * Headers of another stream than the first frame are then treated as junk. A truncated last
+ * frame is left out.
+ *
+ * A segment closes on the first frame boundary at or after the target duration, so segments are
+ * the target plus at most one frame (26ms at 44.1kHz).
+ */
+public final class Mp3Segmenter {
+    private static final int[][] BITRATES_V1 = {
+            {0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448},
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384},
+            {0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320}};
+    private static final int[][] BITRATES_V2 = {
+            {0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256},
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160},
+            {0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160}};
+    private static final int[] SAMPLE_RATES_V1 = {44100, 48000, 32000};
+
+    private record FrameHeader(int version, int layer, int sampleRate, int length, int samples) {
+        boolean sameStream(FrameHeader other) {
+            return version == other.version && layer == other.layer && sampleRate == other.sampleRate;
+        }
+    }
+
+    private Mp3Segmenter() {
+    }
+
+    /**
+     * @return the segments, empty when the stream holds no MPEG audio
+     * @throws IOException if the stream cannot be read
+     */
+    public static List<SongHls.Segment> segment(InputStream input, long targetDurationMicros) throws IOException {
+        InputStream in = new BufferedInputStream(input, 64 * 1024);
+        List<SongHls.Segment> segments = new ArrayList<>();
+
+        long frameStart = skipId3v2(in);
+        int b0 = in.read();
+        int b1 = in.read();
+        int b2 = in.read();
+        int b3 = in.read();
+
+        FrameHeader first = null;
+        long segmentStart = -1;
+        long segmentEnd = 0;
+        long segmentSamples = 0;
+        long elapsedMicros = 0;
+
+        while (b3 >= 0) {
+            FrameHeader header = parse(b0, b1, b2, b3);
+            boolean frame = header != null && (first != null ? header.sameStream(first) : followedByFrame(in, header));
+            if (!frame) {
+                // Not a frame of this stream, slide by one byte
+                b0 = b1;
+                b1 = b2;
+                b2 = b3;
+                b3 = in.read();
+                frameStart++;
+                continue;
+            }
+
+            try {
+                in.skipNBytes(header.length() - 4);
+            } catch (EOFException e) {
+                break;
+            }
+            if (first == null) {
+                first = header;
+            }
+            if (segmentStart < 0) {
+                segmentStart = frameStart;
+            }
+            segmentSamples += header.samples();
+            segmentEnd = frameStart + header.length();
+            frameStart = segmentEnd;
+
+            long segmentMicros = segmentSamples * 1_000_000L / first.sampleRate();
+            if (segmentMicros >= targetDurationMicros) {
+                segments.add(new SongHls.Segment(segmentStart, segmentEnd - segmentStart, elapsedMicros, segmentMicros));
+                elapsedMicros += segmentMicros;
+                segmentStart = -1;
+                segmentSamples = 0;
+            }
+
+            b0 = in.read();
+            b1 = in.read();
+            b2 = in.read();
+            b3 = in.read();
+        }
+
+        if (segmentStart >= 0) {
+            long segmentMicros = segmentSamples * 1_000_000L / first.sampleRate();
+            segments.add(new SongHls.Segment(segmentStart, segmentEnd - segmentStart, elapsedMicros, segmentMicros));
+        }
+        return segments;
+    }
+
+    // Whether the header is followed by another one of the same stream, the header's 4 bytes being read
+    private static boolean followedByFrame(InputStream in, FrameHeader header) throws IOException {
+        in.mark(header.length());
+        byte[] frame = in.readNBytes(header.length());
+        in.reset();
+        if (frame.length < header.length()) {
+            return false;
+        }
+        int next = header.length() - 4;
+        FrameHeader following = parse(frame[next] & 0xFF, frame[next + 1] & 0xFF,
+                frame[next + 2] & 0xFF, frame[next + 3] & 0xFF);
+        return following != null && following.sameStream(header);
+    }
+
+    // Returns the number of bytes skipped, 0 without a tag
+    private static long skipId3v2(InputStream in) throws IOException {
+        in.mark(10);
+        byte[] header = in.readNBytes(10);
+        if (header.length < 10 || header[0] != 'I' || header[1] != 'D' || header[2] != '3') {
+            in.reset();
+            return 0;
+        }
+        // Syncsafe: 7 bits per byte
+        long size = ((header[6] & 0x7F) << 21) | ((header[7] & 0x7F) << 14)
+                | ((header[8] & 0x7F) << 7) | (header[9] & 0x7F);
+        boolean footer = (header[5] & 0x10) != 0;
+        long tagBody = size + (footer ? 10 : 0);
+        in.skipNBytes(tagBody);
+        return 10 + tagBody;
+    }
+
+    private static FrameHeader parse(int b0, int b1, int b2, int b3) {
+        if (b0 != 0xFF || (b1 & 0xE0) != 0xE0) {
+            return null;
+        }
+        // 0: MPEG 2.5, 1: reserved, 2: MPEG 2, 3: MPEG 1
+        int version = (b1 >> 3) & 0x03;
+        // 1: layer III, 2: layer II, 3: layer I, 0: reserved
+        int layerBits = (b1 >> 1) & 0x03;
+        int bitrateIndex = (b2 >> 4) & 0x0F;
+        int sampleRateIndex = (b2 >> 2) & 0x03;
+        if (version == 1 || layerBits == 0 || bitrateIndex == 0 || bitrateIndex == 15 || sampleRateIndex == 3) {
+            // Free format bitrate is not supported either
+            return null;
+        }
+        int layer = 4 - layerBits;
+        int padding = (b2 >> 1) & 0x01;
+
+        int bitrate = (version == 3 ? BITRATES_V1 : BITRATES_V2)[layer - 1][bitrateIndex] * 1000;
+        int sampleRate = SAMPLE_RATES_V1[sampleRateIndex] >> (version == 3 ? 0 : version == 2 ? 1 : 2);
+
+        int samples;
+        int length;
+        if (layer == 1) {
+            samples = 384;
+            length = (12 * bitrate / sampleRate + padding) * 4;
+        } else {
+            samples = layer == 3 && version != 3 ? 576 : 1152;
+            length = samples / 8 * bitrate / sampleRate + padding;
+        }
+        return length > 4 ? new FrameHeader(version, layer, sampleRate, length, samples) : null;
+    }
+}
@@ -5,6 +5,7 @@ import music.dto.request.UpdateSongRequest;
 import music.dto.response.SearchSongResponse;
 import music.dto.response.SongResponse;
 import music.model.Song;
+import music.model.SongListing;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
@@ -18,5 +19,7 @@ public interface SongMapper {
     @Mapping(target = "genres", ignore = true)
     void updateSong(@MappingTarget Song song, UpdateSongRequest request);
     SongResponse toSongResponse(Song song);
-    SearchSongResponse toSearchSongResponse(Song song);
+    @Mapping(target = "artistIds", ignore = true)
+    @Mapping(target = "artistNames", ignore = true)
+    SearchSongResponse toSearchSongResponse(SongListing listing);
 }
@@ -29,6 +29,10 @@ public class Album extends AbstractEntity {
     @JoinColumn(name = "artist_id")
     private Artist artist;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @OneToMany(mappedBy = "album")
     private Set<Song> songs = new HashSet<>();
 }
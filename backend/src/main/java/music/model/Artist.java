@@ -31,6 +31,10 @@ public class Artist extends AbstractEntity {
     @Column(name = "followers")
     private long followers = 0;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
     @ManyToMany(mappedBy = "artists")
     private Set<Song> songs = new HashSet<>();
 
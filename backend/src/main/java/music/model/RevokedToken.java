@@ -0,0 +1,23 @@
+package music.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+@Entity
+@Table(name = "revoked_token")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RevokedToken extends AbstractEntity {
+    // Refresh token id (jti) or token family id (fid)
+    @Id
+    @Column(name = "id")
+    private String id;
+
+    @Column(name = "expires_at")
+    private Date expiresAt;
+}
@@ -3,6 +3,7 @@ package music.model;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
+import music.constant.SongStatus;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -32,9 +33,21 @@ public class Song extends AbstractEntity {
     @Column(name = "song_url", length = 512)
     private String songUrl;
 
-    @Column(name = "like_count")
+    // Written by SongLikeCounter only, an entity update must not overwrite a flushed count
+    @Column(name = "like_count", updatable = false)
     private long likeCount = 0;
 
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private SongStatus status = SongStatus.READY;
+
+    @Column(name = "failure_reason", length = 512)
+    private String failureReason;
+
     @ManyToMany(mappedBy = "songs")
     @JsonIgnore
     private Set<Genre> genres;
@@ -0,0 +1,38 @@
+package music.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.List;
+
+/**
+ * HLS segmentation of a song's audio: each segment is a byte range of the stored file, cut at MPEG
+ * frame boundaries by {@link music.hls.Mp3Segmenter}. Tied to the audio URL it was computed from,
+ * a row for another URL is stale.
+ */
+@Entity
+@Table(name = "song_hls")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class SongHls extends AbstractEntity {
+    public record Segment(long offset, long length, long startMicros, long durationMicros) {
+    }
+
+    @Id
+    @Column(name = "song_id")
+    private Long id;
+
+    @Column(name = "song_url", length = 512)
+    private String songUrl;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "segments")
+    private List<Segment> segments;
+}
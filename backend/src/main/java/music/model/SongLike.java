@@ -0,0 +1,16 @@
+package music.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "song_like")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SongLike extends AbstractEntity {
+    @EmbeddedId
+    private SongLikeId id;
+}
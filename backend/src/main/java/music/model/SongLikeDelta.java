@@ -0,0 +1,32 @@
+package music.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Journal of like count changes not yet applied to song.like_count,
+ * written in the same transaction as the like itself and replayed at startup.
+ */
+@Entity
+@Table(name = "song_like_delta")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SongLikeDelta {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "song_id")
+    private Long songId;
+
+    @Column(name = "delta")
+    private int delta;
+
+    // Flush round the change belongs to, see SongLikeCounter
+    @Column(name = "epoch")
+    private long epoch;
+}
@@ -0,0 +1,21 @@
+package music.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+
+import java.io.Serializable;
+
+@Embeddable
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+public class SongLikeId implements Serializable {
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "song_id")
+    private Long songId;
+}
@@ -0,0 +1,58 @@
+package music.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.util.List;
+
+/**
+ * Read-only row of the song_listing table: what a song listing shows, in one narrow row per song
+ * instead of a join over artists, genres and album. Rows are rewritten by
+ * {@link music.repository.SongListingRepository} in the same transaction as every catalog change.
+ */
+@Entity
+@Immutable
+@Table(name = "song_listing")
+@Getter
+@NoArgsConstructor
+public class SongListing extends AbstractEntity {
+    public record ListedArtist(Long id, String name) {
+    }
+
+    @Id
+    @Column(name = "song_id")
+    private Long id;
+
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "duration")
+    private Integer duration;
+
+    @Column(name = "image_url", length = 512)
+    private String imageUrl;
+
+    @Column(name = "song_url", length = 512)
+    private String songUrl;
+
+    @Column(name = "like_count")
+    private long likeCount;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "artists")
+    private List<ListedArtist> artists;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(name = "genre_ids")
+    private List<Integer> genreIds;
+
+    @Column(name = "album_id")
+    private Long albumId;
+
+    @Column(name = "album_name")
+    private String albumName;
+}
@@ -3,6 +3,7 @@ package music.repository;
 import music.model.Album;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,6 +11,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -27,6 +29,30 @@ public interface AlbumRepository extends JpaRepository<Album, Long> {
             "WHERE a.id IN :ids")
     List<Album> findAllByIdsAndSort(@Param("ids") List<Long> ids, Sort sort);
     @Query("SELECT a.id FROM Album a " +
+            "WHERE a.id IN :ids")
+    Slice<Long> findAllIdsByIdIn(@Param("ids") Collection<Long> ids, Pageable pageable);
+    @Query("SELECT a.id FROM Album a " +
+            "WHERE LOWER(a.name) LIKE LOWER(CONCAT('%', :name, '%'))")
+    Slice<Long> findAllIdsByName(@Param("name") String name, Pageable pageable);
+    @Query("SELECT COUNT(a) FROM Album a " +
             "WHERE LOWER(a.name) LIKE LOWER(CONCAT('%', :name, '%'))")
-    Page<Long> findAllIdsByName(@Param("name") String name, Pageable pageable);
+    long countByName(@Param("name") String name);
+    @Query("SELECT a.id, a.name FROM Album a")
+    List<Object[]> findAllIdsAndNames();
+    @Query("SELECT a.id, a.name, COALESCE(SUM(s.likeCount), 0) FROM Album a " +
+            "LEFT JOIN a.songs s " +
+            "GROUP BY a.id, a.name")
+    List<Object[]> findAllIdsNamesAndLikeCounts();
+    @Query("SELECT a.id FROM Album a " +
+            "WHERE a.artist.id = :artistId")
+    List<Long> findAllIdsByArtistId(@Param("artistId") Long artistId);
+
+    // Fingerprint of everything getAlbum shows: the album row, its artist row and its songs
+    @Query(value = "SELECT CONCAT_WS(':', al.version, UNIX_TIMESTAMP(al.updated_at), " +
+            "COALESCE(a.id, 0), COALESCE(a.version, 0), " +
+            "(SELECT CONCAT(COUNT(*), '.', BIT_XOR(CRC32(CONCAT_WS('.', s.id, s.version, s.like_count)))) " +
+            "FROM song s WHERE s.album_id = al.id)) " +
+            "FROM album al LEFT JOIN artist a ON a.id = al.artist_id " +
+            "WHERE al.id = :id", nativeQuery = true)
+    Optional<String> findFingerprintById(@Param("id") Long id);
 }
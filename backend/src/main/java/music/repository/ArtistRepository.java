@@ -3,6 +3,7 @@ package music.repository;
 import music.model.Artist;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -11,6 +12,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -29,9 +31,19 @@ public interface ArtistRepository extends JpaRepository<Artist, Long>, JpaSpecif
     @Query("SELECT a FROM Artist a " +
             "WHERE a.id IN :ids")
     List<Artist> findAllByIdsAndSort(@Param("ids") List<Long> ids, Sort sort);
+    @Query("SELECT a.id FROM Artist a " +
+            "WHERE a.id IN :ids")
+    Slice<Long> findAllIdsByIdIn(@Param("ids") Collection<Long> ids, Pageable pageable);
     @Query("SELECT a.id FROM Artist a " +
             "WHERE LOWER(a.name) LIKE LOWER(CONCAT('%', :name, '%'))")
-    Page<Long> findAllIdsByName(@Param("name") String name, Pageable pageable);
+    Slice<Long> findAllIdsByName(@Param("name") String name, Pageable pageable);
+    @Query("SELECT COUNT(a) FROM Artist a " +
+            "WHERE LOWER(a.name) LIKE LOWER(CONCAT('%', :name, '%'))")
+    long countByName(@Param("name") String name);
+    @Query("SELECT a.id, a.name FROM Artist a")
+    List<Object[]> findAllIdsAndNames();
+    @Query("SELECT a.id, a.name, a.followers FROM Artist a")
+    List<Object[]> findAllIdsNamesAndFollowers();
     @Query("SELECT a FROM Artist a " +
             "WHERE a.user.id = :userId")
     Optional<Artist> findByUserId(@Param("userId") Long userId);
@@ -39,4 +51,17 @@ public interface ArtistRepository extends JpaRepository<Artist, Long>, JpaSpecif
             "ORDER BY a.followers DESC " +
             "LIMIT 6", nativeQuery = true)
     List<Long> find6MostFollowedArtistIds();
+
+    // Fingerprint of everything getArtist shows: the artist row, its albums,
+    // its songs and the artists of those songs
+    @Query(value = "SELECT CONCAT_WS(':', a.version, UNIX_TIMESTAMP(a.updated_at), a.followers, " +
+            "(SELECT CONCAT(COUNT(*), '.', BIT_XOR(CRC32(CONCAT_WS('.', al.id, al.version)))) " +
+            "FROM album al WHERE al.artist_id = a.id), " +
+            "(SELECT CONCAT(COUNT(*), '.', BIT_XOR(CRC32(CONCAT_WS('.', s.id, s.version, s.like_count)))) " +
+            "FROM artist_songs x JOIN song s ON s.id = x.song_id WHERE x.artist_id = a.id), " +
+            "(SELECT CONCAT(COUNT(*), '.', BIT_XOR(CRC32(CONCAT_WS('.', x2.song_id, co.id, co.version)))) " +
+            "FROM artist_songs x JOIN artist_songs x2 ON x2.song_id = x.song_id " +
+            "JOIN artist co ON co.id = x2.artist_id WHERE x.artist_id = a.id)) " +
+            "FROM artist a WHERE a.id = :id", nativeQuery = true)
+    Optional<String> findFingerprintById(@Param("id") Long id);
 }
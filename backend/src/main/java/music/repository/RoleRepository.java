@@ -3,10 +3,12 @@ package music.repository;
 import music.constant.RoleName;
 import music.model.Role;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
 
@@ -15,8 +17,19 @@ public interface RoleRepository extends JpaRepository<Role, Integer> {
     Optional<Role> findByName(RoleName name);
     @Query("SELECT r FROM Role r WHERE r.name IN :names")
     Set<Role> findByNameIn(@Param("names") Set<RoleName> names);
-    @Query("SELECT DISTINCT r FROM Role r " +
-            "LEFT JOIN FETCH r.users " +
-            "WHERE r.name = :name")
-    Optional<Role> findByNameWithUsers(@Param("name") RoleName name);
+
+    // Role membership is written to user_roles directly, adding one user through
+    // Role.users would load every user having the role
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_roles (user_id, role_id) " +
+            "SELECT :userId, r.id FROM role r WHERE r.id IN :roleIds", nativeQuery = true)
+    int addUserToRoles(@Param("userId") Long userId, @Param("roleIds") Collection<Integer> roleIds);
+    @Modifying
+    @Query(value = "DELETE FROM user_roles " +
+            "WHERE user_id = :userId AND role_id IN :roleIds", nativeQuery = true)
+    int removeUserFromRoles(@Param("userId") Long userId, @Param("roleIds") Collection<Integer> roleIds);
+    @Modifying
+    @Query(value = "DELETE FROM user_roles " +
+            "WHERE user_id = :userId AND role_id NOT IN :roleIds", nativeQuery = true)
+    int removeUserFromRolesNotIn(@Param("userId") Long userId, @Param("roleIds") Collection<Integer> roleIds);
 }
@@ -0,0 +1,9 @@
+package music.repository;
+
+import music.model.SongHls;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SongHlsRepository extends JpaRepository<SongHls, Long> {
+}
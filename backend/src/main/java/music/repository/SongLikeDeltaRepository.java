@@ -0,0 +1,20 @@
+package music.repository;
+
+import music.model.SongLikeDelta;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SongLikeDeltaRepository extends JpaRepository<SongLikeDelta, Long> {
+    @Query("SELECT d.songId, SUM(d.delta) FROM SongLikeDelta d " +
+            "GROUP BY d.songId")
+    List<Object[]> sumDeltasBySongId();
+    @Modifying
+    @Query("DELETE FROM SongLikeDelta d WHERE d.epoch = :epoch")
+    int deleteAllByEpoch(@Param("epoch") long epoch);
+}
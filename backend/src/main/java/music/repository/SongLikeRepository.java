@@ -0,0 +1,32 @@
+package music.repository;
+
+import music.model.SongLike;
+import music.model.SongLikeId;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface SongLikeRepository extends JpaRepository<SongLike, SongLikeId> {
+    // 1 if the like was added, 0 if the user already liked the song
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO song_like (user_id, song_id) " +
+            "VALUES (:userId, :songId)", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId, @Param("songId") Long songId);
+    @Modifying
+    @Query("DELETE FROM SongLike l " +
+            "WHERE l.id.userId = :userId AND l.id.songId = :songId")
+    int deleteByUserIdAndSongId(@Param("userId") Long userId, @Param("songId") Long songId);
+    // Locks the user's likes and the gap after them, so no like of the user is added meanwhile
+    @Query(value = "SELECT song_id FROM song_like " +
+            "WHERE user_id = :userId FOR UPDATE", nativeQuery = true)
+    List<Long> findAllSongIdsByUserIdForUpdate(@Param("userId") Long userId);
+    @Modifying
+    @Query("DELETE FROM SongLike l " +
+            "WHERE l.id.userId = :userId")
+    int deleteAllByUserId(@Param("userId") Long userId);
+}
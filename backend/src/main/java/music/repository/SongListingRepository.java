@@ -0,0 +1,53 @@
+package music.repository;
+
+import music.model.SongListing;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SongListingRepository extends JpaRepository<SongListing, Long> {
+    // Rebuilds listing rows from the song, artist, genre and album tables, for playable songs only
+    String REFRESH = "REPLACE INTO song_listing (song_id, name, duration, image_url, song_url, like_count, " +
+            "artists, genre_ids, album_id, album_name, created_at, updated_at) " +
+            "SELECT s.id, s.name, s.duration, s.image_url, s.song_url, s.like_count, " +
+            "(SELECT JSON_ARRAYAGG(JSON_OBJECT('id', a.id, 'name', a.name)) FROM artist_songs x " +
+            "JOIN artist a ON a.id = x.artist_id WHERE x.song_id = s.id), " +
+            "(SELECT JSON_ARRAYAGG(g.genre_id) FROM song_genres g WHERE g.song_id = s.id), " +
+            "al.id, al.name, s.created_at, s.updated_at " +
+            "FROM song s LEFT JOIN album al ON al.id = s.album_id " +
+            "WHERE s.song_url IS NOT NULL ";
+
+    @Query("SELECT l FROM SongListing l " +
+            "WHERE l.id IN :ids")
+    Slice<SongListing> findAllByIdIn(@Param("ids") Collection<Long> ids, Pageable pageable);
+    @Query("SELECT l FROM SongListing l " +
+            "WHERE l.id IN :ids")
+    List<SongListing> findAllByIdIn(@Param("ids") Collection<Long> ids, Sort sort);
+    @Query("SELECT l FROM SongListing l " +
+            "WHERE LOWER(l.name) LIKE LOWER(CONCAT('%', :name, '%'))")
+    Slice<SongListing> findAllByName(@Param("name") String name, Pageable pageable);
+    @Query("SELECT COUNT(l) FROM SongListing l " +
+            "WHERE LOWER(l.name) LIKE LOWER(CONCAT('%', :name, '%'))")
+    long countByName(@Param("name") String name);
+
+    @Modifying
+    @Query(value = REFRESH + "AND s.id IN :songIds", nativeQuery = true)
+    int refreshBySongIds(@Param("songIds") Collection<Long> songIds);
+    @Modifying
+    @Query(value = REFRESH + "AND s.album_id = :albumId", nativeQuery = true)
+    int refreshByAlbumId(@Param("albumId") Long albumId);
+    // Songs of a deleted album are left without album by the database
+    @Modifying
+    @Query(value = "UPDATE song_listing SET album_id = NULL, album_name = NULL " +
+            "WHERE album_id = :albumId", nativeQuery = true)
+    int clearAlbum(@Param("albumId") Long albumId);
+}
@@ -1,18 +1,21 @@
 package music.repository;
 
+import music.constant.SongStatus;
 import music.model.Song;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface SongRepository extends JpaRepository<Song, Long>, JpaSpecificationExecutor<Song> {
@@ -21,36 +24,74 @@ public interface SongRepository extends JpaRepository<Song, Long>, JpaSpecificat
     @Query("SELECT s FROM Song s " +
             "WHERE s.id = :id")
     Optional<Song> findByIdWithAllFields(@Param("id") Long id);
-    @Query("SELECT s.id FROM Song s")
-    Page<Long> findAllIds(Pageable pageable);
-    @EntityGraph(attributePaths = {"genres", "artists", "album"})
-    @Query("SELECT s FROM Song s " +
-            "WHERE s.id IN :ids")
-    List<Song> findAllByIdsAndSort(@Param("ids") List<Long> ids, Sort sort);
-    @Query("SELECT s.id FROM Song s " +
-            "WHERE LOWER(s.name) LIKE LOWER(CONCAT('%', :name, '%'))")
-    Page<Long> findAllIdsByName(@Param("name") String name, Pageable pageable);
+    // Loaders of the in-memory indexes, which only know playable songs
+    @Query("SELECT s.id, s.name FROM Song s " +
+            "WHERE s.songUrl IS NOT NULL")
+    List<Object[]> findAllPlayableIdsAndNames();
+    @Query("SELECT s.id, s.name, s.likeCount FROM Song s " +
+            "WHERE s.songUrl IS NOT NULL")
+    List<Object[]> findAllPlayableIdsNamesAndLikeCounts();
 
     @Query("SELECT s.id FROM Song s JOIN s.genres g WHERE g.id = :genreId")
-    Page<Long> findAllIdsByGenre(@Param("genreId") Integer genreId, Pageable pageable);
+    Slice<Long> findAllIdsByGenre(@Param("genreId") Integer genreId, Pageable pageable);
+    @Query("SELECT g.id, s.id FROM Song s JOIN s.genres g " +
+            "WHERE s.songUrl IS NOT NULL")
+    List<Object[]> findAllGenreIdsAndPlayableSongIds();
+
+    // Genre membership is written to song_genres directly, adding one song through
+    // Genre.songs would load every song of the genre
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO song_genres (song_id, genre_id) " +
+            "SELECT :songId, g.id FROM genre g WHERE g.id IN :genreIds", nativeQuery = true)
+    int addGenres(@Param("songId") Long songId, @Param("genreIds") Collection<Integer> genreIds);
+    @Modifying
+    @Query(value = "DELETE FROM song_genres " +
+            "WHERE song_id = :songId AND genre_id NOT IN :genreIds", nativeQuery = true)
+    int removeGenresNotIn(@Param("songId") Long songId, @Param("genreIds") Collection<Integer> genreIds);
 
     @Query("SELECT DISTINCT s FROM Song s JOIN FETCH s.artists a " +
             "WHERE s.id IN (SELECT s2.id FROM Song s2 JOIN s2.artists a2 WHERE a2.id = :artistId) " +
             "ORDER BY s.likeCount DESC")
     List<Song> findAllByArtistId(@Param("artistId") Long artistId);
-    @Query(value = "SELECT s.id FROM song s " +
-            "ORDER BY RAND() " +
-            "LIMIT 6", nativeQuery = true)
-    List<Long> find6RandomSongIds();
+    @Query("SELECT s.id FROM Song s JOIN s.artists a WHERE a.id = :artistId")
+    List<Long> findAllIdsByArtistId(@Param("artistId") Long artistId);
+    @Query("SELECT s.id, s.likeCount FROM Song s " +
+            "WHERE s.songUrl IS NOT NULL")
+    List<Object[]> findAllPlayableIdsAndLikeCounts();
+    @Query("SELECT s.id, s.album.id FROM Song s WHERE s.id IN :ids AND s.album IS NOT NULL")
+    List<Object[]> findAllIdsAndAlbumIdsByIdIn(@Param("ids") Collection<Long> ids);
+    // Empty for a song without audio yet
+    @Query("SELECT s.songUrl FROM Song s WHERE s.id = :id")
+    Optional<String> findSongUrlById(@Param("id") Long id);
+    @Query("SELECT s.id FROM Song s WHERE s.status = :status")
+    List<Long> findAllIdsByStatus(@Param("status") SongStatus status);
+    @Query(value = "SELECT genre_id FROM song_genres WHERE song_id = :songId", nativeQuery = true)
+    Set<Integer> findGenreIdsById(@Param("songId") Long songId);
+
+    // Compare-and-set, so concurrent retries start one upload. Bulk updates do not bump the version
+    @Modifying
+    @Query("UPDATE Song s SET s.status = :to, s.failureReason = :failureReason " +
+            "WHERE s.id = :id AND s.status = :from")
+    int updateStatus(@Param("id") Long id,
+                     @Param("from") SongStatus from,
+                     @Param("to") SongStatus to,
+                     @Param("failureReason") String failureReason);
 
     @Query(value = "SELECT s.id FROM song s " +
             "ORDER BY s.like_count DESC " +
             "LIMIT 6", nativeQuery = true)
     List<Long> find6MostLikedSongIds();
 
-    @Query("SELECT DISTINCT s FROM Song s " +
-            "LEFT JOIN FETCH s.artists " +
-            "WHERE s.id IN :ids " +
-            "ORDER BY s.likeCount DESC")
-    List<Song> findSongsWithArtistsByIds(List<Long> ids);
+    // Fingerprint of everything getSong shows: the song row, its album and artists rows,
+    // and its genre set (written straight to song_genres, so it does not bump the version).
+    // Sets are summed up as count + xor of crc32 per member, GROUP_CONCAT would be cut off
+    @Query(value = "SELECT CONCAT_WS(':', s.version, UNIX_TIMESTAMP(s.updated_at), s.like_count, " +
+            "COALESCE(al.id, 0), COALESCE(al.version, 0), " +
+            "(SELECT CONCAT(COUNT(*), '.', BIT_XOR(CRC32(CONCAT_WS('.', a.id, a.version)))) " +
+            "FROM artist_songs x JOIN artist a ON a.id = x.artist_id WHERE x.song_id = s.id), " +
+            "(SELECT CONCAT(COUNT(*), '.', BIT_XOR(CRC32(g.genre_id))) " +
+            "FROM song_genres g WHERE g.song_id = s.id)) " +
+            "FROM song s LEFT JOIN album al ON al.id = s.album_id " +
+            "WHERE s.id = :id", nativeQuery = true)
+    Optional<String> findFingerprintById(@Param("id") Long id);
 }
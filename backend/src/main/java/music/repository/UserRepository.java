@@ -54,6 +54,6 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     List<User> findAllByIdsAndSort(@Param("ids") List<Long> ids, Sort sort);
     @Query("SELECT u.id FROM User u WHERE u.username = :username")
     Optional<Long> findIdByUsername(@Param("username") String username);
-    @Query("SELECT u FROM User u WHERE u.password IS NULL OR u.password = ''")
-    List<User> findByPasswordIsNullOrPasswordIsEmpty();
+    @Query("SELECT u.username FROM User u WHERE u.id = :id")
+    Optional<String> findUsernameById(@Param("id") Long id);
 }
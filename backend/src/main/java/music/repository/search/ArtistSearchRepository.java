@@ -4,9 +4,9 @@ import music.model.Artist;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.criteria.*;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Repository;
@@ -19,13 +19,18 @@ public class ArtistSearchRepository {
     @PersistenceContext
     private EntityManager entityManager;
 
-    public Page<Long> findIdsBySpecification(Specification<Artist> specification, Pageable pageable) {
+    /**
+     * Fetches one row more than the page size to know whether there is a next page, without counting.
+     */
+    public Slice<Long> findIdSliceBySpecification(Specification<Artist> specification, Pageable pageable) {
         CriteriaBuilder builder = entityManager.getCriteriaBuilder();
         CriteriaQuery<Long> query = builder.createQuery(Long.class);
         Root<Artist> root = query.from(Artist.class);
 
-        Predicate predicate = specification.toPredicate(root, query, builder);
-        query.select(root.get("id")).where(predicate);
+        query.select(root.get("id"));
+        if (specification != null) {
+            query.where(specification.toPredicate(root, query, builder));
+        }
 
         if (pageable.getSort() != null) {
             List<Order> orders = new ArrayList<>();
@@ -42,17 +47,24 @@ public class ArtistSearchRepository {
 
         List<Long> ids = entityManager.createQuery(query)
                 .setFirstResult((int) pageable.getOffset())
-                .setMaxResults(pageable.getPageSize())
+                .setMaxResults(pageable.getPageSize() + 1)
                 .getResultList();
 
+        boolean hasNext = ids.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? ids.subList(0, pageable.getPageSize()) : ids, pageable, hasNext);
+    }
+
+    public long countBySpecification(Specification<Artist> specification) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
         CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
         Root<Artist> countRoot = countQuery.from(Artist.class);
 
-        Predicate countPredicate = specification.toPredicate(countRoot, query, builder);
-        countQuery.select(builder.count(countRoot)).where(countPredicate);
-
-        long total = entityManager.createQuery(countQuery).getSingleResult();
+        countQuery.select(builder.count(countRoot));
+        if (specification != null) {
+            countQuery.where(specification.toPredicate(countRoot, countQuery, builder));
+        }
 
-        return new PageImpl<>(ids, pageable, total);
+        return entityManager.createQuery(countQuery).getSingleResult();
     }
 }
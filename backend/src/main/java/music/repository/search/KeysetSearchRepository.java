@@ -0,0 +1,95 @@
+package music.repository.search;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import music.utils.CursorUtil.Position;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keyset (seek) pagination: instead of skipping OFFSET rows, continues right after the
+ * (sort key, id) of the last row of the previous page, so every page costs the same.
+ */
+@Repository
+public class KeysetSearchRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Returns up to {@code limit} (sort key, id) positions ordered by the sort key then id,
+     * starting after {@code after} (null for the first page).
+     * Callers ask for page size + 1 rows to know whether there is a next page.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <T> List<Position> findPositions(Class<T> entityClass,
+                                            Specification<T> specification,
+                                            Sort.Order order,
+                                            Position after,
+                                            int limit) {
+        if (limit < 2) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = builder.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+
+        Path<Comparable> sortPath = root.get(order.getProperty());
+        Path<Long> idPath = root.get("id");
+        boolean ascending = order.isAscending();
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, builder);
+            if (predicate != null) {
+                predicates.add(predicate);
+            }
+        }
+        if (after != null) {
+            predicates.add(seekPredicate(builder, sortPath, idPath, ascending, after));
+        }
+
+        query.multiselect(sortPath, idPath)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(ascending ? builder.asc(sortPath) : builder.desc(sortPath),
+                        ascending ? builder.asc(idPath) : builder.desc(idPath));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(tuple -> new Position(tuple.get(0), tuple.get(1, Long.class)))
+                .toList();
+    }
+
+    // MySQL sorts NULL before any value: first on ASC, last on DESC
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate seekPredicate(CriteriaBuilder builder,
+                                   Path<Comparable> sortPath,
+                                   Path<Long> idPath,
+                                   boolean ascending,
+                                   Position after) {
+        Predicate idAfter = ascending
+                ? builder.greaterThan(idPath, after.id())
+                : builder.lessThan(idPath, after.id());
+
+        if (after.sortKey() == null) {
+            Predicate sameNullGroup = builder.and(builder.isNull(sortPath), idAfter);
+            return ascending ? builder.or(sameNullGroup, builder.isNotNull(sortPath)) : sameNullGroup;
+        }
+
+        Comparable sortKey = (Comparable) after.sortKey();
+        Predicate keyAfter = ascending
+                ? builder.greaterThan(sortPath, sortKey)
+                : builder.lessThan(sortPath, sortKey);
+        Predicate seek = builder.or(keyAfter, builder.and(builder.equal(sortPath, sortKey), idAfter));
+
+        return ascending ? seek : builder.or(seek, builder.isNull(sortPath));
+    }
+}
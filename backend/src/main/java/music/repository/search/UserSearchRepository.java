@@ -6,13 +6,14 @@ import music.mapper.UserMapper;
 import music.model.User;
 import music.repository.criteria.SearchCriteria;
 import music.repository.criteria.UserSearchCriteriaQueryConsumer;
+import music.repository.specification.SearchFilterParser;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.criteria.*;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Repository;
@@ -26,10 +27,13 @@ import java.util.regex.Pattern;
 @Repository
 @RequiredArgsConstructor
 public class UserSearchRepository {
+    private static final Pattern SORT_BY = Pattern.compile("^(\\w+)(:)(asc|desc)$");
+
     @PersistenceContext
     private EntityManager entityManager;
 
     private final UserMapper userMapper;
+    private final SearchFilterParser searchFilterParser;
 
     public PageResponseCriteria<?> criteriaSearch(int offset, int pageSize, String sortBy, String... search) {
 
@@ -37,9 +41,9 @@ public class UserSearchRepository {
 
         if (search != null) {
             for (String s : search) {
-                Pattern pattern = Pattern.compile("^(\\w+)(!:|!~|!=|>=|<=|[:~=><])(\\w+)$");
-                Matcher matcher = pattern.matcher(s);
+                Matcher matcher = SearchFilterParser.SINGLE_TERM.matcher(s);
                 if (matcher.find()) {
+                    searchFilterParser.keyType(User.class, matcher.group(1));
                     criteriaList.add(new SearchCriteria(matcher.group(1), matcher.group(2), matcher.group(3)));
                 }
             }
@@ -63,13 +67,18 @@ public class UserSearchRepository {
                 .build();
     }
 
-    public Page<Long> findIdsBySpecification(Specification<User> specification, Pageable pageable) {
+    /**
+     * Fetches one row more than the page size to know whether there is a next page, without counting.
+     */
+    public Slice<Long> findIdSliceBySpecification(Specification<User> specification, Pageable pageable) {
         CriteriaBuilder builder = entityManager.getCriteriaBuilder();
         CriteriaQuery<Long> query = builder.createQuery(Long.class);
         Root<User> root = query.from(User.class);
 
-        Predicate predicate = specification.toPredicate(root, query, builder);
-        query.select(root.get("id")).where(predicate);
+        query.select(root.get("id"));
+        if (specification != null) {
+            query.where(specification.toPredicate(root, query, builder));
+        }
 
         if (pageable.getSort() != null) {
             List<Order> orders = new ArrayList<>();
@@ -85,19 +94,26 @@ public class UserSearchRepository {
         }
 
         List<Long> ids = entityManager.createQuery(query)
-                            .setFirstResult((int) pageable.getOffset())
-                            .setMaxResults(pageable.getPageSize())
-                            .getResultList();
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+
+        boolean hasNext = ids.size() > pageable.getPageSize();
 
+        return new SliceImpl<>(hasNext ? ids.subList(0, pageable.getPageSize()) : ids, pageable, hasNext);
+    }
+
+    public long countBySpecification(Specification<User> specification) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
         CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
         Root<User> countRoot = countQuery.from(User.class);
 
-        Predicate countPredicate = specification.toPredicate(countRoot, query, builder);
-        countQuery.select(builder.count(countRoot)).where(countPredicate);
-
-        long total = entityManager.createQuery(countQuery).getSingleResult();
+        countQuery.select(builder.count(countRoot));
+        if (specification != null) {
+            countQuery.where(specification.toPredicate(countRoot, countQuery, builder));
+        }
 
-        return new PageImpl<>(ids, pageable, total);
+        return entityManager.createQuery(countQuery).getSingleResult();
     }
 
     private List<Long> getUsersIds(int offset, int pageSize, List<SearchCriteria> criteriaList) {
@@ -133,8 +149,7 @@ public class UserSearchRepository {
         query.where(root.get("id").in(ids));
 
         if (StringUtils.hasLength(sortBy)) {
-            Pattern pattern = Pattern.compile("^(\\w+)(:)(asc|desc)$");
-            Matcher matcher = pattern.matcher(sortBy);
+            Matcher matcher = SORT_BY.matcher(sortBy);
             if (matcher.find()) {
                 String columnToSort = matcher.group(1);
                 String sortDirection = matcher.group(3);
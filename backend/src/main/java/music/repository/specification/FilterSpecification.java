@@ -0,0 +1,69 @@
+package music.repository.specification;
+
+import jakarta.persistence.criteria.*;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Predicate for a single {@link SearchFilter.Term}, shared by every searchable entity.
+ * Values are already converted to the attribute type, so they are bound as typed parameters
+ * and comparisons on numeric or date columns can use their indexes.
+ * Holds no per-query state, so compiled filters can be cached and reused.
+ */
+@Getter
+@RequiredArgsConstructor
+public class FilterSpecification<T> implements Specification<T> {
+    private final SearchFilter.Term term;
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Predicate toPredicate(@NonNull Root<T> root,
+                                 CriteriaQuery<?> query,
+                                 @NonNull CriteriaBuilder builder) {
+
+        Path<Comparable> path = root.get(term.key());
+        Comparable value = (Comparable) term.value();
+        SearchOperator operator = term.operator();
+
+        return switch (operator) {
+
+            case GREATER_THAN -> builder.greaterThan(path, value);
+
+            case GREATER_THAN_OR_EQUAL_TO -> builder.greaterThanOrEqualTo(path, value);
+
+            case LESS_THAN -> builder.lessThan(path, value);
+
+            case LESS_THAN_OR_EQUAL_TO -> builder.lessThanOrEqualTo(path, value);
+
+            case BETWEEN -> between(builder, path, value, (Comparable) term.to());
+
+            case EQUAL -> builder.equal(path, value);
+
+            case NOT_EQUAL -> builder.notEqual(path, value);
+
+            case LIKE -> builder.like(root.get(term.key()), value.toString());
+
+            case NOT_LIKE -> builder.notLike(root.get(term.key()), value.toString());
+
+            case CONTAIN -> builder.like(root.get(term.key()), "%" + value + "%");
+
+            case NOT_CONTAIN -> builder.notLike(root.get(term.key()), "%" + value + "%");
+
+            default -> throw new IllegalStateException("Unexpected operator: " + operator);
+
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate between(CriteriaBuilder builder, Path<Comparable> path, Comparable from, Comparable to) {
+        if (from == null) {
+            return builder.lessThanOrEqualTo(path, to);
+        }
+        if (to == null) {
+            return builder.greaterThanOrEqualTo(path, from);
+        }
+        return builder.between(path, from, to);
+    }
+}
@@ -0,0 +1,25 @@
+package music.repository.specification;
+
+import java.util.List;
+
+/**
+ * Parsed and validated specification search string, e.g. {@code name~love,likeCount=100..500'duration<200}.
+ * Terms are combined left to right: each term after the first is AND-ed (",") or OR-ed ("'")
+ * with everything before it.
+ */
+public record SearchFilter(List<Term> terms) {
+
+    /**
+     * @param andOrLogic {@link SearchOperator#AND_OPERATOR}, {@link SearchOperator#OR_OPERATOR}, or null for the first term
+     * @param type       Java type of the entity attribute the key refers to
+     * @param value      value converted to the attribute type, the lower bound for {@link SearchOperator#BETWEEN}
+     * @param to         upper bound for {@link SearchOperator#BETWEEN}, null otherwise
+     */
+    public record Term(String andOrLogic,
+                       String key,
+                       Class<?> type,
+                       SearchOperator operator,
+                       Object value,
+                       Object to) {
+    }
+}
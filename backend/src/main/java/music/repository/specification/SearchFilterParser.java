@@ -0,0 +1,196 @@
+package music.repository.specification;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.metamodel.EntityType;
+import music.exception.InvalidDataException;
+import music.model.Album;
+import music.model.Artist;
+import music.model.Song;
+import music.model.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns specification search strings into {@link Specification}s.
+ *
+ * Only whitelisted attributes can be searched on, their types are resolved once from the JPA
+ * metamodel and values are converted to them while parsing, so they are bound as typed
+ * parameters (long, int, boolean, date as yyyy-MM-dd, enum by name). On non-text attributes
+ * {@code key=from..to} is a BETWEEN, {@code key=from..} and {@code key=..to} are open ranges.
+ * Compiled specifications are cached per entity and normalized search string,
+ * since the same few filters are sent over and over.
+ */
+@Component
+public class SearchFilterParser {
+    private static final String OPERATORS = "(!:|!~|!=|>=|<=|[:~=><])";
+
+    // Values may hold dates (2024-01-31), negative numbers and ranges (100..500)
+    public static final Pattern TERM = Pattern.compile("([,']?)(\\w+)" + OPERATORS + "([\\w.\\-]+)");
+
+    // A whole string holding exactly one term without and/or logic
+    public static final Pattern SINGLE_TERM = Pattern.compile("^(\\w+)" + OPERATORS + "(\\w+)$");
+
+    private static final Map<Class<?>, Set<String>> SEARCHABLE_KEYS = Map.of(
+            Song.class, Set.of("id", "name", "duration", "likeCount", "createdAt", "updatedAt"),
+            Artist.class, Set.of("id", "name", "bio", "followers", "createdAt", "updatedAt"),
+            Album.class, Set.of("id", "name", "createdAt", "updatedAt"),
+            User.class, Set.of("id", "firstName", "lastName", "gender", "dateOfBirth", "phoneNumber",
+                    "email", "username", "active", "createdAt", "updatedAt"));
+
+    private static final Set<SearchOperator> TEXT_OPERATORS = EnumSet.of(
+            SearchOperator.LIKE, SearchOperator.NOT_LIKE, SearchOperator.CONTAIN, SearchOperator.NOT_CONTAIN);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<Class<?>, Map<String, Class<?>>> keyTypes = new HashMap<>();
+    private final Cache<String, Optional<Specification<?>>> compiled;
+
+    public SearchFilterParser(@Value("${searchFilter.cacheMaximumSize}") long maximumSize,
+                              MeterRegistry meterRegistry) {
+        this.compiled = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, compiled, "searchFilters");
+    }
+
+    @PostConstruct
+    void resolveKeyTypes() {
+        SEARCHABLE_KEYS.forEach((entityClass, keys) -> {
+            EntityType<?> entityType = entityManager.getMetamodel().entity(entityClass);
+            Map<String, Class<?>> types = new HashMap<>();
+            keys.forEach(key -> types.put(key,
+                    ClassUtils.resolvePrimitiveIfNecessary(entityType.getAttribute(key).getJavaType())));
+            keyTypes.put(entityClass, Map.copyOf(types));
+        });
+    }
+
+    /**
+     * Returns the specification for the search string, null when there is nothing to filter on.
+     *
+     * @throws InvalidDataException if a key is not searchable or the operator does not fit its type
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Specification<T> compile(Class<T> entityClass, String search) {
+        if (!StringUtils.hasText(search)) {
+            return null;
+        }
+        String normalized = search.strip();
+        // A string without any term compiles to no specification, cached as empty
+        Optional<Specification<?>> specification = compiled.get(entityClass.getSimpleName() + "|" + normalized,
+                key -> Optional.ofNullable(toSpecification(parse(entityClass, normalized))));
+        return (Specification<T>) specification.orElse(null);
+    }
+
+    public SearchFilter parse(Class<?> entityClass, String search) {
+        List<SearchFilter.Term> terms = new ArrayList<>();
+        Matcher matcher = TERM.matcher(search);
+
+        while (matcher.find()) {
+            String andOrLogic = StringUtils.hasLength(matcher.group(1)) ? matcher.group(1) : null;
+            // Terms after the first one without and/or logic have never been applied
+            if (!terms.isEmpty() && andOrLogic == null) {
+                continue;
+            }
+            terms.add(term(entityClass, terms.isEmpty() ? null : andOrLogic,
+                    matcher.group(2), matcher.group(3), matcher.group(4)));
+        }
+
+        return new SearchFilter(List.copyOf(terms));
+    }
+
+    /**
+     * Validates a single key against the entity's searchable attributes and returns its type.
+     */
+    public Class<?> keyType(Class<?> entityClass, String key) {
+        Class<?> type = keyTypes.getOrDefault(entityClass, Map.of()).get(key);
+        if (type == null) {
+            throw new InvalidDataException("Cannot search by " + key);
+        }
+        return type;
+    }
+
+    private SearchFilter.Term term(Class<?> entityClass, String andOrLogic, String key, String operator, String value) {
+        Class<?> type = keyType(entityClass, key);
+        SearchOperator searchOperator = SearchOperator.getSimpleOperator(operator);
+        if (TEXT_OPERATORS.contains(searchOperator) && type != String.class) {
+            throw new InvalidDataException("Operator " + operator + " only applies to text, " + key + " is not");
+        }
+
+        int range = value.indexOf(SearchOperator.RANGE);
+        if (searchOperator == SearchOperator.EQUAL && type != String.class && range >= 0) {
+            String from = value.substring(0, range);
+            String to = value.substring(range + SearchOperator.RANGE.length());
+            if (from.isEmpty() && to.isEmpty()) {
+                throw new InvalidDataException("Range for " + key + " needs at least one bound");
+            }
+            return new SearchFilter.Term(andOrLogic, key, type, SearchOperator.BETWEEN,
+                    from.isEmpty() ? null : convert(type, key, from),
+                    to.isEmpty() ? null : convert(type, key, to));
+        }
+
+        return new SearchFilter.Term(andOrLogic, key, type, searchOperator, convert(type, key, value), null);
+    }
+
+    private static Object convert(Class<?> type, String key, String value) {
+        try {
+            if (type == String.class) {
+                return value;
+            }
+            if (type == Long.class) {
+                return Long.valueOf(value);
+            }
+            if (type == Integer.class) {
+                return Integer.valueOf(value);
+            }
+            if (type == Boolean.class && (value.equalsIgnoreCase("true") || value.equalsIgnoreCase("false"))) {
+                return Boolean.valueOf(value);
+            }
+            if (type == Date.class) {
+                return Date.from(LocalDate.parse(value).atStartOfDay(ZoneId.systemDefault()).toInstant());
+            }
+            if (type.isEnum()) {
+                for (Object constant : type.getEnumConstants()) {
+                    if (((Enum<?>) constant).name().equalsIgnoreCase(value)) {
+                        return constant;
+                    }
+                }
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new InvalidDataException("Invalid value for " + key + ": " + value, e);
+        }
+        throw new InvalidDataException("Invalid value for " + key + ": " + value);
+    }
+
+    private <T> Specification<T> toSpecification(SearchFilter filter) {
+        Specification<T> result = null;
+        for (SearchFilter.Term term : filter.terms()) {
+            Specification<T> specification = new FilterSpecification<>(term);
+            if (result == null) {
+                result = specification;
+            } else if (SearchOperator.OR_OPERATOR.equals(term.andOrLogic())) {
+                result = Specification.where(result).or(specification);
+            } else {
+                result = Specification.where(result).and(specification);
+            }
+        }
+        return result;
+    }
+}
@@ -12,12 +12,16 @@ public enum SearchOperator {
     CONTAIN,
     NOT_CONTAIN,
     STARTS_WITH,
-    ENDS_WITH;
+    ENDS_WITH,
+    BETWEEN;
 
     public static final String[] SIMPLE_OPERATOR_SET = { "=", "!=", ">", ">=", "<", "<=", ":", "!:", "~", "!~"};
 
     public static final String ZERO_OR_MORE = "*";
 
+    // key=from..to, either bound may be left out
+    public static final String RANGE = "..";
+
     public static final String OR_OPERATOR = "'";
 
     public static final String AND_OPERATOR = ",";
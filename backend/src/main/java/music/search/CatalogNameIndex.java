@@ -0,0 +1,77 @@
+package music.search;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import music.constant.CatalogType;
+import music.event.CatalogChangedEvent;
+import music.repository.AlbumRepository;
+import music.repository.ArtistRepository;
+import music.repository.SongRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Trigram indexes over song, artist and album names, so name searches resolve to ids
+ * without a LIKE '%name%' scan. Loaded from the database at startup and kept current
+ * by the {@link CatalogChangedEvent}s the catalog services publish once their changes commit.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogNameIndex {
+    private final SongRepository songRepository;
+    private final ArtistRepository artistRepository;
+    private final AlbumRepository albumRepository;
+
+    private final Map<CatalogType, TrigramIndex> indexes = new EnumMap<>(CatalogType.class);
+
+    @Value("${search.name.maxCandidates}")
+    private int maxCandidates;
+
+    @PostConstruct
+    void load() {
+        load(CatalogType.SONG, songRepository.findAllPlayableIdsAndNames());
+        load(CatalogType.ARTIST, artistRepository.findAllIdsAndNames());
+        load(CatalogType.ALBUM, albumRepository.findAllIdsAndNames());
+    }
+
+    /**
+     * Ids of the given type whose name contains the query, ignoring case and accents.
+     */
+    public List<Long> search(CatalogType type, String query) {
+        return indexes.get(type).search(query);
+    }
+
+    /**
+     * Ids matching the query, or empty when more than {@code maxCandidates} match: binding most of
+     * the table into an IN list costs the database more than the LIKE scan would.
+     */
+    public Optional<List<Long>> searchCandidates(CatalogType type, String query) {
+        List<Long> ids = indexes.get(type).search(query, maxCandidates + 1);
+        return ids.size() > maxCandidates ? Optional.empty() : Optional.of(ids);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        TrigramIndex index = indexes.get(event.type());
+        if (event.deleted()) {
+            index.remove(event.id());
+        } else {
+            index.put(event.id(), event.name());
+        }
+    }
+
+    private void load(CatalogType type, List<Object[]> rows) {
+        TrigramIndex index = new TrigramIndex();
+        rows.forEach(row -> index.put((Long) row[0], (String) row[1]));
+        indexes.put(type, index);
+        log.info("Indexed {} {} names", index.size(), type.name().toLowerCase());
+    }
+}
@@ -0,0 +1,92 @@
+package music.search;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import music.constant.CatalogType;
+import music.event.CatalogChangedEvent;
+import music.event.SongLikesFlushedEvent;
+import music.repository.AlbumRepository;
+import music.repository.ArtistRepository;
+import music.repository.SongRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typeahead over song, artist and album names, ranked by like count (songs, and the sum over
+ * its songs for an album) and followers (artists). Loaded at startup and kept current by
+ * {@link CatalogChangedEvent}s, like {@link CatalogNameIndex}, and by {@link SongLikesFlushedEvent}s
+ * for song like counts and the album sums over them.
+ *
+ * A flushed change goes to the album the song is on at the flush. The likes a song had when it
+ * moved to another album or was deleted stay in its former album's sum until the next startup.
+ */
+@Component
+@Slf4j
+public class CatalogSuggester {
+    private final SongRepository songRepository;
+    private final ArtistRepository artistRepository;
+    private final AlbumRepository albumRepository;
+
+    private final Map<CatalogType, PrefixTrie> tries = new EnumMap<>(CatalogType.class);
+
+    public CatalogSuggester(SongRepository songRepository,
+                            ArtistRepository artistRepository,
+                            AlbumRepository albumRepository,
+                            @Value("${search.suggest.maxLimit}") int maxLimit,
+                            @Value("${search.suggest.maxPrefixLength}") int maxPrefixLength) {
+        this.songRepository = songRepository;
+        this.artistRepository = artistRepository;
+        this.albumRepository = albumRepository;
+        for (CatalogType type : CatalogType.values()) {
+            tries.put(type, new PrefixTrie(maxLimit, maxPrefixLength));
+        }
+    }
+
+    @PostConstruct
+    void load() {
+        load(CatalogType.SONG, songRepository.findAllPlayableIdsNamesAndLikeCounts());
+        load(CatalogType.ARTIST, artistRepository.findAllIdsNamesAndFollowers());
+        load(CatalogType.ALBUM, albumRepository.findAllIdsNamesAndLikeCounts());
+    }
+
+    public List<PrefixTrie.Entry> suggest(CatalogType type, String prefix, int limit) {
+        return tries.get(type).search(prefix, limit);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        PrefixTrie trie = tries.get(event.type());
+        if (event.deleted()) {
+            trie.remove(event.id());
+        } else {
+            trie.put(event.id(), event.name(), event.popularity());
+        }
+    }
+
+    @EventListener
+    public void onSongLikesFlushed(SongLikesFlushedEvent event) {
+        Map<Long, Long> deltas = event.deltas();
+        deltas.forEach(tries.get(CatalogType.SONG)::addPopularity);
+
+        Map<Long, Long> albumDeltas = new HashMap<>();
+        for (Object[] row : songRepository.findAllIdsAndAlbumIdsByIdIn(deltas.keySet())) {
+            albumDeltas.merge((Long) row[1], deltas.get((Long) row[0]), Long::sum);
+        }
+        albumDeltas.forEach(tries.get(CatalogType.ALBUM)::addPopularity);
+    }
+
+    private void load(CatalogType type, List<Object[]> rows) {
+        List<PrefixTrie.Entry> entries = rows.stream()
+                .map(row -> new PrefixTrie.Entry((Long) row[0], (String) row[1], ((Number) row[2]).longValue()))
+                .toList();
+        tries.get(type).load(entries);
+        log.info("Loaded {} {} suggestions", entries.size(), type.name().toLowerCase());
+    }
+}
@@ -0,0 +1,249 @@
+package music.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import music.constant.CatalogType;
+import music.event.CatalogChangedEvent;
+import music.event.SongLikesFlushedEvent;
+import music.repository.SongRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ids of playable songs to pick featured songs from, instead of ORDER BY RAND() over the song table.
+ *
+ * Ids live in a dense long[] (removal swaps in the last id), so a uniform pick of k distinct songs
+ * is Floyd's algorithm: O(k) whatever the catalog size. Weighted picks go through a Fenwick tree
+ * over like count + 1: O(k log n), chosen songs are zeroed while sampling so they are not drawn twice.
+ *
+ * Songs recently served to a user are left out of their next picks while the pool is big enough.
+ */
+@Component
+@Slf4j
+public class FeaturedSongPool {
+    private final SongRepository songRepository;
+    private final int recentPerUser;
+    private final Cache<String, Deque<Long>> recentlyServed;
+
+    // guarded by this
+    private long[] ids = new long[16];
+    private long[] weights = new long[16];
+    private long[] tree = new long[17];
+    private int size;
+    private final Map<Long, Integer> positions = new HashMap<>();
+
+    public FeaturedSongPool(SongRepository songRepository,
+                            @Value("${featuredSongs.recentPerUser}") int recentPerUser,
+                            @Value("${featuredSongs.recentUsersMaximumSize}") long recentUsersMaximumSize,
+                            @Value("${featuredSongs.recentExpireAfterAccess}") long recentExpireAfterAccess,
+                            MeterRegistry meterRegistry) {
+        this.songRepository = songRepository;
+        this.recentPerUser = recentPerUser;
+        this.recentlyServed = Caffeine.newBuilder()
+                .maximumSize(recentUsersMaximumSize)
+                .expireAfterAccess(Duration.ofMillis(recentExpireAfterAccess))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recentlyServed, "featuredSongsRecentlyServed");
+    }
+
+    @PostConstruct
+    synchronized void load() {
+        List<Object[]> rows = songRepository.findAllPlayableIdsAndLikeCounts();
+        int capacity = Math.max(16, Integer.highestOneBit(Math.max(1, rows.size())) << 1);
+        ids = new long[capacity];
+        weights = new long[capacity];
+        tree = new long[capacity + 1];
+        size = 0;
+        positions.clear();
+        rows.forEach(row -> add((Long) row[0], (Long) row[1]));
+        log.info("Loaded {} featured song candidates", size);
+    }
+
+    /**
+     * Picks up to {@code count} distinct song ids, avoiding the ones recently served to the user
+     * (null for anonymous requests).
+     */
+    public List<Long> sample(int count, boolean weighted, String username) {
+        Deque<Long> recent = username == null ? null : recentlyServed.get(username, key -> new ArrayDeque<>());
+        Set<Long> excluded = Set.of();
+        if (recent != null) {
+            // Concurrent requests of the same user append to it
+            synchronized (recent) {
+                excluded = new HashSet<>(recent);
+            }
+        }
+        List<Long> picked;
+        synchronized (this) {
+            // Not enough songs left once the recent ones are excluded: allow repeats
+            if (size - excluded.size() < count) {
+                excluded = Set.of();
+            }
+            picked = weighted ? sampleWeighted(count, excluded) : sampleUniform(count, excluded);
+        }
+
+        if (recent != null) {
+            synchronized (recent) {
+                picked.forEach(recent::addLast);
+                while (recent.size() > recentPerUser) {
+                    recent.removeFirst();
+                }
+            }
+        }
+        return picked;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.type() != CatalogType.SONG) {
+            return;
+        }
+        if (event.deleted()) {
+            remove(event.id());
+        } else if (!positions.containsKey(event.id())) {
+            add(event.id(), event.popularity() != null ? event.popularity() : 0);
+        } else if (event.popularity() != null) {
+            int position = positions.get(event.id());
+            setWeight(position, event.popularity() + 1);
+        }
+    }
+
+    @EventListener
+    public synchronized void onSongLikesFlushed(SongLikesFlushedEvent event) {
+        event.deltas().forEach((id, delta) -> {
+            Integer position = positions.get(id);
+            if (position != null) {
+                setWeight(position, Math.max(1, weights[position] + delta));
+            }
+        });
+    }
+
+    // Floyd: k distinct positions out of [0, size) with k draws
+    private List<Long> sampleUniform(int count, Set<Long> excluded) {
+        int wanted = Math.min(size, count + excluded.size());
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Set<Integer> chosen = new HashSet<>();
+        for (int j = size - wanted; j < size; j++) {
+            int position = random.nextInt(j + 1);
+            chosen.add(chosen.contains(position) ? j : position);
+        }
+
+        // Floyd's set is uniform but its order is not: early draws only reach low positions,
+        // so shuffle before keeping the first non excluded ones
+        List<Integer> shuffled = new ArrayList<>(chosen);
+        Collections.shuffle(shuffled, random);
+        List<Long> picked = new ArrayList<>(count);
+        for (int position : shuffled) {
+            if (picked.size() < count && !excluded.contains(ids[position])) {
+                picked.add(ids[position]);
+            }
+        }
+        return picked;
+    }
+
+    private List<Long> sampleWeighted(int count, Set<Long> excluded) {
+        Map<Integer, Long> zeroed = new HashMap<>();
+        excluded.forEach(id -> {
+            Integer position = positions.get(id);
+            if (position != null) {
+                zeroed.put(position, weights[position]);
+                setWeight(position, 0);
+            }
+        });
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Long> picked = new ArrayList<>(count);
+        while (picked.size() < count) {
+            long total = prefixSum(size);
+            if (total <= 0) {
+                break;
+            }
+            int position = findByCumulativeWeight(random.nextLong(total));
+            picked.add(ids[position]);
+            zeroed.put(position, weights[position]);
+            setWeight(position, 0);
+        }
+
+        zeroed.forEach(this::setWeight);
+        return picked;
+    }
+
+    private void add(Long id, long popularity) {
+        if (positions.containsKey(id)) {
+            return;
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        ids[size] = id;
+        positions.put(id, size);
+        setWeight(size, popularity + 1);
+        size++;
+    }
+
+    private void remove(Long id) {
+        Integer position = positions.remove(id);
+        if (position == null) {
+            return;
+        }
+        int last = size - 1;
+        long lastWeight = weights[last];
+        setWeight(last, 0);
+        if (position != last) {
+            ids[position] = ids[last];
+            positions.put(ids[position], position);
+            setWeight(position, lastWeight);
+        }
+        size--;
+    }
+
+    private void grow() {
+        long[] previousWeights = weights;
+        ids = Arrays.copyOf(ids, ids.length * 2);
+        weights = new long[ids.length];
+        tree = new long[ids.length + 1];
+        for (int i = 0; i < size; i++) {
+            setWeight(i, previousWeights[i]);
+        }
+    }
+
+    // Fenwick tree, 1-based internally
+    private void setWeight(int position, long weight) {
+        long delta = weight - weights[position];
+        weights[position] = weight;
+        for (int i = position + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private long prefixSum(int count) {
+        long sum = 0;
+        for (int i = count; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    // Smallest position whose cumulative weight exceeds target
+    private int findByCumulativeWeight(long target) {
+        int position = 0;
+        for (int step = Integer.highestOneBit(tree.length - 1); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next < tree.length && tree[next] <= target) {
+                position = next;
+                target -= tree[next];
+            }
+        }
+        return position;
+    }
+}
@@ -0,0 +1,185 @@
+package music.search;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import music.constant.CatalogType;
+import music.event.CatalogChangedEvent;
+import music.event.SongGenresChangedEvent;
+import music.event.SongLikesFlushedEvent;
+import music.repository.GenreRepository;
+import music.repository.SongRepository;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Song ids of every genre as compressed (Roaring) bitmaps, so multi-genre filters are bitmap
+ * ANDs / ORs and the genre sidebar counts are cardinalities, without touching song_genres.
+ * Loaded at startup and kept current by {@link SongGenresChangedEvent}s and song deletions.
+ *
+ * Bitmaps are never modified once published: a change copies the bitmaps of the genres it
+ * touches and swaps in a new map, so readers need no locking. Song ids must fit in an int.
+ *
+ * Like counts are kept alongside, so a page of matching songs in id or like order is picked
+ * here and the database only loads the songs of that page.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GenreSongIndex {
+    private final SongRepository songRepository;
+    private final GenreRepository genreRepository;
+
+    private volatile Map<Integer, RoaringBitmap> bitmaps = Map.of();
+    private final Map<Integer, Long> likeCounts = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    synchronized void load() {
+        songRepository.findAllPlayableIdsNamesAndLikeCounts()
+                .forEach(row -> likeCounts.put(toIntId((Long) row[0]), (Long) row[2]));
+        Map<Integer, RoaringBitmap> loaded = new HashMap<>();
+        genreRepository.findAll().forEach(genre -> loaded.put(genre.getId(), new RoaringBitmap()));
+        List<Object[]> rows = songRepository.findAllGenreIdsAndPlayableSongIds();
+        rows.forEach(row -> loaded.computeIfAbsent((Integer) row[0], genreId -> new RoaringBitmap())
+                .add(toIntId((Long) row[1])));
+        loaded.values().forEach(RoaringBitmap::runOptimize);
+        bitmaps = Map.copyOf(loaded);
+        log.info("Indexed {} song genres over {} genres", rows.size(), loaded.size());
+    }
+
+    /**
+     * Songs in all (matchAll) or any of the genres. Unknown genres match no song.
+     */
+    public RoaringBitmap songIds(Collection<Integer> genreIds, boolean matchAll) {
+        Map<Integer, RoaringBitmap> current = bitmaps;
+        RoaringBitmap[] selected = genreIds.stream()
+                .distinct()
+                .map(genreId -> current.getOrDefault(genreId, new RoaringBitmap()))
+                .toArray(RoaringBitmap[]::new);
+        if (selected.length == 0) {
+            return new RoaringBitmap();
+        }
+        if (selected.length == 1) {
+            return selected[0].clone();
+        }
+        return matchAll ? FastAggregation.and(selected) : FastAggregation.or(selected);
+    }
+
+    /**
+     * Number of songs per genre, only counting the given songs unless null.
+     */
+    public Map<Integer, Integer> counts(RoaringBitmap within) {
+        Map<Integer, Integer> counts = new HashMap<>();
+        bitmaps.forEach((genreId, bitmap) -> counts.put(genreId,
+                within == null ? bitmap.getCardinality() : RoaringBitmap.andCardinality(bitmap, within)));
+        return counts;
+    }
+
+    /**
+     * Songs at [offset, offset + limit) of the given ones in id order, by rank selection on the bitmap.
+     */
+    public static List<Long> pageById(RoaringBitmap songs, boolean ascending, long offset, int limit) {
+        long end = Math.min(songs.getLongCardinality(), offset + limit);
+        List<Long> page = new ArrayList<>();
+        for (long rank = offset; rank < end; rank++) {
+            int index = (int) (ascending ? rank : songs.getLongCardinality() - 1 - rank);
+            page.add((long) songs.select(index));
+        }
+        return page;
+    }
+
+    /**
+     * Songs at [offset, offset + limit) of the given ones by like count then id. One pass over
+     * the bitmap keeping the first offset + limit songs in a heap.
+     */
+    public List<Long> pageByLikes(RoaringBitmap songs, boolean ascending, long offset, int limit) {
+        int end = (int) Math.min(songs.getLongCardinality(), offset + limit);
+        if (offset >= end) {
+            return List.of();
+        }
+        Comparator<Integer> order = Comparator.<Integer>comparingLong(songId -> likeCounts.getOrDefault(songId, 0L))
+                .thenComparingInt(songId -> songId);
+        if (!ascending) {
+            order = order.reversed();
+        }
+
+        // Head is the last of the kept songs, evicted when a better one comes
+        PriorityQueue<Integer> kept = new PriorityQueue<>(end, order.reversed());
+        for (IntIterator iterator = songs.getIntIterator(); iterator.hasNext(); ) {
+            kept.add(iterator.next());
+            if (kept.size() > end) {
+                kept.poll();
+            }
+        }
+        List<Integer> sorted = new ArrayList<>(kept);
+        sorted.sort(order);
+        return sorted.subList((int) offset, end).stream()
+                .map(Long::valueOf)
+                .toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onSongGenresChanged(SongGenresChangedEvent event) {
+        int songId = toIntId(event.songId());
+        Map<Integer, RoaringBitmap> updated = new HashMap<>(bitmaps);
+        updated.replaceAll((genreId, bitmap) -> {
+            boolean member = event.genreIds().contains(genreId);
+            if (bitmap.contains(songId) == member) {
+                return bitmap;
+            }
+            RoaringBitmap copy = bitmap.clone();
+            if (member) {
+                copy.add(songId);
+            } else {
+                copy.remove(songId);
+            }
+            return copy;
+        });
+        event.genreIds().forEach(genreId -> updated.computeIfAbsent(genreId, id -> RoaringBitmap.bitmapOf(songId)));
+        bitmaps = Map.copyOf(updated);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        if (event.type() != CatalogType.SONG) {
+            return;
+        }
+        if (event.deleted()) {
+            onSongGenresChanged(new SongGenresChangedEvent(event.id(), Set.of()));
+            likeCounts.remove(toIntId(event.id()));
+        } else if (event.popularity() != null) {
+            likeCounts.put(toIntId(event.id()), event.popularity());
+        }
+    }
+
+    @EventListener
+    public void onSongLikesFlushed(SongLikesFlushedEvent event) {
+        event.deltas().forEach((songId, delta) ->
+                likeCounts.merge(toIntId(songId), delta, (likes, change) -> Math.max(0, likes + change)));
+    }
+
+    public static RoaringBitmap toBitmap(Collection<Long> songIds) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        songIds.forEach(songId -> bitmap.add(toIntId(songId)));
+        return bitmap;
+    }
+
+    public static List<Long> toSongIds(RoaringBitmap bitmap) {
+        List<Long> songIds = new ArrayList<>(bitmap.getCardinality());
+        for (int songId : bitmap.toArray()) {
+            songIds.add((long) songId);
+        }
+        return songIds;
+    }
+
+    private static int toIntId(Long songId) {
+        return Math.toIntExact(songId);
+    }
+}
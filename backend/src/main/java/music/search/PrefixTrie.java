@@ -0,0 +1,296 @@
+package music.search;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Popularity ranked prefix trie for typeahead.
+ *
+ * Every name is inserted once per word, as the suffix starting at that word, so "shape of you"
+ * is found by "sha", "of y" and "you". Each node keeps the top {@code topK} entries of its
+ * subtree, so a lookup is a walk down the prefix followed by a copy of at most topK entries.
+ *
+ * A node's top entries only depend on its own entries and its children's top entries,
+ * so a change recomputes the nodes on the changed paths bottom-up instead of whole subtrees.
+ * Children are kept in sorted char arrays rather than maps to keep nodes small, and keys are
+ * cut at {@code maxPrefixLength}: longer prefixes are answered by filtering the entries of the
+ * deepest node, which is exact since every key passing through it ends there.
+ *
+ * Writes are serialized, reads are lock-free: children, top and terminal entries are immutable
+ * arrays published through volatile fields.
+ */
+public class PrefixTrie {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final Children NO_CHILDREN = new Children(new char[0], new Node[0]);
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong(Entry::popularity).reversed()
+            .thenComparing(Entry::name)
+            .thenComparing(Entry::id);
+
+    public record Entry(Long id, String name, long popularity) {
+    }
+
+    private record Children(char[] keys, Node[] nodes) {
+        Node get(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index < 0 ? null : nodes[index];
+        }
+    }
+
+    private static final class Node {
+        volatile Children children = NO_CHILDREN;
+        volatile Entry[] top = NO_ENTRIES;
+        // Entries whose key ends here, also read by lookups longer than maxPrefixLength
+        volatile Entry[] terminal = NO_ENTRIES;
+    }
+
+    private final int topK;
+    private final int maxPrefixLength;
+    private final Node root = new Node();
+    // guarded by this
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    public PrefixTrie(int topK, int maxPrefixLength) {
+        this.topK = topK;
+        this.maxPrefixLength = maxPrefixLength;
+    }
+
+    /**
+     * Replaces the whole content, computing every node's top entries in one pass.
+     */
+    public synchronized void load(Collection<Entry> loaded) {
+        entries.clear();
+        root.children = NO_CHILDREN;
+        root.terminal = NO_ENTRIES;
+        for (Entry entry : loaded) {
+            entries.put(entry.id(), entry);
+            for (String key : indexedKeys(entry.name())) {
+                Node node = root;
+                for (int i = 0; i < key.length(); i++) {
+                    node = childFor(node, key.charAt(i));
+                }
+                node.terminal = append(node.terminal, entry);
+            }
+        }
+        computeTop(root);
+    }
+
+    /**
+     * Adds or replaces an entry. A null popularity keeps the current one (0 for a new entry).
+     */
+    public synchronized void put(Long id, String name, Long popularity) {
+        Entry previous = entries.get(id);
+        long resolvedPopularity = popularity != null ? popularity : previous != null ? previous.popularity() : 0;
+        Entry entry = new Entry(id, name, resolvedPopularity);
+        if (entry.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            removeKeys(previous);
+        }
+        entries.put(id, entry);
+        for (String key : indexedKeys(name)) {
+            List<Node> path = new ArrayList<>(key.length());
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = childFor(node, key.charAt(i));
+                path.add(node);
+            }
+            node.terminal = append(node.terminal, entry);
+            recompute(path);
+        }
+    }
+
+    public synchronized void updatePopularity(Long id, long popularity) {
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            put(id, entry.name(), popularity);
+        }
+    }
+
+    public synchronized void addPopularity(Long id, long delta) {
+        Entry entry = entries.get(id);
+        if (entry != null) {
+            put(id, entry.name(), Math.max(0, entry.popularity() + delta));
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            removeKeys(previous);
+        }
+    }
+
+    /**
+     * Most popular entries with a word starting with the prefix, at most min(limit, topK).
+     */
+    public List<Entry> search(String prefix, int limit) {
+        String key = toKey(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        Node node = root;
+        for (int i = 0; i < Math.min(key.length(), maxPrefixLength) && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        if (key.length() > maxPrefixLength) {
+            return searchTerminal(node, key, limit);
+        }
+        Entry[] top = node.top;
+        return List.of(Arrays.copyOf(top, Math.min(limit, top.length)));
+    }
+
+    private List<Entry> searchTerminal(Node node, String key, int limit) {
+        return Arrays.stream(node.terminal)
+                .filter(entry -> keys(entry.name()).stream().anyMatch(entryKey -> entryKey.startsWith(key)))
+                .distinct()
+                .sorted(RANKING)
+                .limit(Math.min(limit, topK))
+                .toList();
+    }
+
+    private void removeKeys(Entry entry) {
+        for (String key : indexedKeys(entry.name())) {
+            List<Node> path = new ArrayList<>(key.length());
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+                path.add(node);
+            }
+            if (node == null) {
+                continue;
+            }
+            node.terminal = Arrays.stream(node.terminal)
+                    .filter(terminal -> !terminal.id().equals(entry.id()))
+                    .toArray(Entry[]::new);
+            prune(key, path);
+            recompute(path);
+        }
+    }
+
+    // Drops nodes left without entries or children, deepest first
+    private void prune(String key, List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            if (node.terminal.length > 0 || node.children.keys().length > 0) {
+                return;
+            }
+            Node parent = i == 0 ? root : path.get(i - 1);
+            removeChild(parent, key.charAt(i));
+            path.remove(i);
+        }
+    }
+
+    private void recompute(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            node.top = rank(node);
+        }
+    }
+
+    private void computeTop(Node node) {
+        for (Node child : node.children.nodes()) {
+            computeTop(child);
+        }
+        if (node != root) {
+            node.top = rank(node);
+        }
+    }
+
+    private Entry[] rank(Node node) {
+        List<Entry> candidates = new ArrayList<>(Arrays.asList(node.terminal));
+        for (Node child : node.children.nodes()) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort(RANKING);
+
+        // A name can reach the same node through several of its words
+        Set<Long> seen = new HashSet<>();
+        List<Entry> top = new ArrayList<>(topK);
+        for (Entry candidate : candidates) {
+            if (top.size() == topK) {
+                break;
+            }
+            if (seen.add(candidate.id())) {
+                top.add(candidate);
+            }
+        }
+        return top.toArray(NO_ENTRIES);
+    }
+
+    private static Node childFor(Node node, char key) {
+        Children children = node.children;
+        int index = Arrays.binarySearch(children.keys(), key);
+        if (index >= 0) {
+            return children.nodes()[index];
+        }
+
+        int insertAt = -index - 1;
+        int size = children.keys().length;
+        char[] keys = new char[size + 1];
+        Node[] nodes = new Node[size + 1];
+        System.arraycopy(children.keys(), 0, keys, 0, insertAt);
+        System.arraycopy(children.nodes(), 0, nodes, 0, insertAt);
+        System.arraycopy(children.keys(), insertAt, keys, insertAt + 1, size - insertAt);
+        System.arraycopy(children.nodes(), insertAt, nodes, insertAt + 1, size - insertAt);
+
+        Node child = new Node();
+        keys[insertAt] = key;
+        nodes[insertAt] = child;
+        node.children = new Children(keys, nodes);
+        return child;
+    }
+
+    private static void removeChild(Node node, char key) {
+        Children children = node.children;
+        int index = Arrays.binarySearch(children.keys(), key);
+        if (index < 0) {
+            return;
+        }
+
+        int size = children.keys().length;
+        char[] keys = new char[size - 1];
+        Node[] nodes = new Node[size - 1];
+        System.arraycopy(children.keys(), 0, keys, 0, index);
+        System.arraycopy(children.nodes(), 0, nodes, 0, index);
+        System.arraycopy(children.keys(), index + 1, keys, index, size - index - 1);
+        System.arraycopy(children.nodes(), index + 1, nodes, index, size - index - 1);
+        node.children = size == 1 ? NO_CHILDREN : new Children(keys, nodes);
+    }
+
+    private static Entry[] append(Entry[] entries, Entry entry) {
+        Entry[] appended = Arrays.copyOf(entries, entries.length + 1);
+        appended[entries.length] = entry;
+        return appended;
+    }
+
+    private Set<String> indexedKeys(String name) {
+        Set<String> indexedKeys = new LinkedHashSet<>();
+        for (String key : keys(name)) {
+            indexedKeys.add(key.length() > maxPrefixLength ? key.substring(0, maxPrefixLength) : key);
+        }
+        return indexedKeys;
+    }
+
+    // One key per word: the normalized name from that word on
+    private static Set<String> keys(String name) {
+        String key = toKey(name);
+        Set<String> keys = new LinkedHashSet<>();
+        if (key.isEmpty()) {
+            return keys;
+        }
+        keys.add(key);
+        for (int i = key.indexOf(' '); i >= 0; i = key.indexOf(' ', i + 1)) {
+            keys.add(key.substring(i + 1));
+        }
+        return keys;
+    }
+
+    private static String toKey(String text) {
+        return WHITESPACE.matcher(TextNormalizer.normalize(text)).replaceAll(" ");
+    }
+}
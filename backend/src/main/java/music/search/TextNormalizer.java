@@ -0,0 +1,23 @@
+package music.search;
+
+import java.text.Normalizer;
+import java.util.regex.Pattern;
+
+/**
+ * Lower case, accent and "đ" insensitive form of catalog names and queries,
+ * matching the accent insensitive collation the LIKE queries relied on.
+ */
+public final class TextNormalizer {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private TextNormalizer() {
+    }
+
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text.strip().toLowerCase(), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").replace('đ', 'd');
+    }
+}
@@ -0,0 +1,127 @@
+package music.search;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Inverted index from character trigrams to ids, answering "name contains query" like
+ * {@code LOWER(name) LIKE '%query%'}, but accent insensitive and without a table scan.
+ *
+ * Queries of three or more characters intersect the posting sets of their trigrams, starting
+ * from the smallest, and confirm each candidate against the stored name.
+ * Shorter queries have no trigram to look up and scan the stored names instead.
+ *
+ * Writes are serialized, reads are lock-free: a read racing a write may miss or still see the
+ * name being changed, but never returns an id whose current name does not match.
+ */
+public class TrigramIndex {
+    private final ConcurrentMap<Long, String> names = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    public synchronized void put(Long id, String name) {
+        String normalized = TextNormalizer.normalize(name);
+        String previous = names.put(id, normalized);
+        if (normalized.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            removePostings(id, previous);
+        }
+        for (long trigram : trigrams(normalized)) {
+            postings.computeIfAbsent(trigram, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        String previous = names.remove(id);
+        if (previous != null) {
+            removePostings(id, previous);
+        }
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Ids whose name contains the query, in no particular order.
+     */
+    public List<Long> search(String query) {
+        return search(query, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #search(String)}, but stops after {@code limit} ids.
+     */
+    public List<Long> search(String query, int limit) {
+        String normalized = TextNormalizer.normalize(query);
+        if (normalized.length() < 3) {
+            return scan(normalized, limit);
+        }
+
+        long[] queryTrigrams = trigrams(normalized);
+        List<Set<Long>> sets = new ArrayList<>(queryTrigrams.length);
+        for (long trigram : queryTrigrams) {
+            Set<Long> ids = postings.get(trigram);
+            if (ids == null || ids.isEmpty()) {
+                return List.of();
+            }
+            sets.add(ids);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+
+        List<Long> result = new ArrayList<>();
+        candidates:
+        for (Long id : sets.get(0)) {
+            for (int i = 1; i < sets.size(); i++) {
+                if (!sets.get(i).contains(id)) {
+                    continue candidates;
+                }
+            }
+            // Trigrams can all be present without being contiguous
+            String name = names.get(id);
+            if (name != null && name.contains(normalized)) {
+                result.add(id);
+                if (result.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<Long> scan(String normalized, int limit) {
+        List<Long> result = new ArrayList<>();
+        for (Map.Entry<Long, String> entry : names.entrySet()) {
+            if (entry.getValue().contains(normalized)) {
+                result.add(entry.getKey());
+                if (result.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    private void removePostings(Long id, String name) {
+        for (long trigram : trigrams(name)) {
+            postings.computeIfPresent(trigram, (key, ids) -> {
+                ids.remove(id);
+                return ids.isEmpty() ? null : ids;
+            });
+        }
+    }
+
+    // Distinct trigrams, each packed as three 16 bit chars
+    private static long[] trigrams(String text) {
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] result = new long[text.length() - 2];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return Arrays.stream(result).distinct().toArray();
+    }
+}
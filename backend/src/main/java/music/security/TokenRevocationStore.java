@@ -0,0 +1,104 @@
+package music.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import music.model.RevokedToken;
+import music.repository.RevokedTokenRepository;
+import music.utils.BloomFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Revoked refresh token ids (jti) and token family ids (fid).
+ *
+ * Lookups never touch the database: a Bloom filter answers the common "not revoked" case,
+ * possible hits are confirmed against an exact in-memory set of id -> expiry.
+ * Every revocation is also written to the revoked_token table, which is loaded at startup
+ * and purged of expired rows on a schedule.
+ */
+@Component
+@Slf4j
+public class TokenRevocationStore {
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+
+    private final ConcurrentMap<String, Long> revoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloomFilter;
+
+    public TokenRevocationStore(RevokedTokenRepository revokedTokenRepository,
+                                @Value("${jwt.revocation.expectedInsertions}") long expectedInsertions,
+                                @Value("${jwt.revocation.falsePositiveProbability}") double falsePositiveProbability) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.bloomFilter = new BloomFilter(expectedInsertions, falsePositiveProbability);
+    }
+
+    @PostConstruct
+    void load() {
+        List<RevokedToken> tokens = revokedTokenRepository.findAllByExpiresAtAfter(new Date());
+        tokens.forEach(token -> revoked.put(token.getId(), token.getExpiresAt().getTime()));
+        rebuildBloomFilter();
+        log.info("Loaded {} revoked token ids", tokens.size());
+    }
+
+    public boolean isRevoked(String id) {
+        if (id == null || !bloomFilter.mightContain(id)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(id);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Revokes the id until the given expiry.
+     *
+     * @return false if the id was already revoked (e.g. a refresh token presented twice)
+     */
+    @Transactional
+    public boolean revoke(String id, Date expiresAt) {
+        // Into the filter before the map, so a published id is never missed by isRevoked. Again after,
+        // in case a concurrent rebuild swapped in a filter built before the id was in the map.
+        bloomFilter.put(id);
+        if (revoked.putIfAbsent(id, expiresAt.getTime()) != null) {
+            return false;
+        }
+        bloomFilter.put(id);
+        revokedTokenRepository.save(RevokedToken.builder()
+                .id(id)
+                .expiresAt(expiresAt)
+                .build());
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.revocation.purgeInterval}")
+    @Transactional
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        rebuildBloomFilter();
+
+        int deleted = revokedTokenRepository.deleteAllExpired(new Date(now));
+        if (deleted > 0) {
+            log.info("Purged {} expired revoked token ids", deleted);
+        }
+    }
+
+    // Expired ids can only be dropped from a Bloom filter by building a new one
+    private void rebuildBloomFilter() {
+        BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, revoked.size() * 2L),
+                falsePositiveProbability);
+        revoked.keySet().forEach(rebuilt::put);
+        bloomFilter = rebuilt;
+        // Ids revoked while rebuilding may have gone into the old filter only
+        revoked.keySet().forEach(rebuilt::put);
+    }
+}
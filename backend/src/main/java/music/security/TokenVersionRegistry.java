@@ -0,0 +1,40 @@
+package music.security;
+
+import music.utils.VerifiedToken;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory per-user access token versions.
+ * Every access token carries the version of its user at the time it was issued ("ver" claim).
+ * Bumping the version (role change, deactivation, deletion...) makes all previously issued
+ * access tokens of that user stale, so their claims can no longer be trusted on their own.
+ *
+ * Versions are not persisted: tokens issued before this instance started are never
+ * considered fresh and must be re-checked against the database.
+ */
+@Component
+public class TokenVersionRegistry {
+    // JWT dates have second precision
+    private final long startedAt = System.currentTimeMillis() / 1000 * 1000;
+    private final ConcurrentMap<String, Long> versions = new ConcurrentHashMap<>();
+
+    public long currentVersion(String username) {
+        return versions.getOrDefault(username, 0L);
+    }
+
+    public void revoke(String username) {
+        if (username != null) {
+            versions.merge(username, 1L, Long::sum);
+        }
+    }
+
+    public boolean isFresh(VerifiedToken token) {
+        return token.version() != null
+                && token.issuedAt() != null
+                && token.issuedAt().getTime() >= startedAt
+                && token.version() == currentVersion(token.subject());
+    }
+}
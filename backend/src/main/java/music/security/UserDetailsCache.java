@@ -0,0 +1,72 @@
+package music.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Size bounded, TTL based cache of {@link UserPrincipal} keyed by username.
+ * Hit/miss/eviction statistics are published as "cache.*" metrics with tag cache=userDetails.
+ */
+@Component
+public class UserDetailsCache {
+    private final Cache<String, UserPrincipal> cache;
+
+    public UserDetailsCache(@Value("${userCache.maximumSize}") long maximumSize,
+                            @Value("${userCache.expireAfterWrite}") long expireAfterWrite,
+                            MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWrite))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
+
+    /**
+     * Returns the cached principal or loads it; exceptions thrown by the loader
+     * (e.g. UsernameNotFoundException) are propagated and nothing is cached.
+     */
+    public UserPrincipal get(String username, Function<String, UserPrincipal> loader) {
+        return cache.get(username, loader);
+    }
+
+    /**
+     * Evicts the user now and, when called inside a transaction, once more after commit,
+     * so a concurrent request can not re-cache the state that is being replaced.
+     */
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        cache.invalidate(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(username);
+                }
+            });
+        }
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidateAll();
+                }
+            });
+        }
+    }
+}
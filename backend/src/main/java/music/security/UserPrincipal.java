@@ -0,0 +1,64 @@
+package music.security;
+
+import music.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Immutable, detached snapshot of a {@link User} and its authorities.
+ * Safe to share between threads and to keep in {@link UserDetailsCache}
+ * (it is deliberately not a CredentialsContainer, so erasing credentials after
+ * authentication never clears the cached password).
+ */
+public record UserPrincipal(Long id,
+                            String username,
+                            String password,
+                            Set<GrantedAuthority> authorities,
+                            boolean active) implements UserDetails {
+
+    public static UserPrincipal from(User user) {
+        return new UserPrincipal(user.getId(),
+                user.getUsername(),
+                user.getPassword(),
+                Set.copyOf(user.getAuthorities()),
+                user.isEnabled());
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return active;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return active;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return active;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return active;
+    }
+}
@@ -1,8 +1,10 @@
 package music.service;
 
+import music.constant.CountMode;
 import music.dto.request.AlbumRequest;
 import music.dto.request.UpdateAlbumRequest;
 import music.dto.response.AlbumResponse;
+import music.dto.response.CursorPageResponse;
 import music.dto.response.PageResponse;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -11,9 +13,11 @@ import java.io.IOException;
 public interface AlbumService {
     long addAlbum(AlbumRequest albumRequest, MultipartFile imageFile) throws IOException;
     AlbumResponse getAlbum(Long id);
+    String getAlbumETag(Long id);
     long updateAlbum(Long id, UpdateAlbumRequest updateAlbumRequest, MultipartFile imageFile) throws IOException;
     long deleteAlbum(Long id);
     PageResponse<?> getAllAlbums(int pageNo, int pageSize, String sortBy);
-    PageResponse<?> getAlbumsByName(int pageNo, int pageSize, String sortBy, String name);
-    PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search);
+    CursorPageResponse<?> getAllAlbumsByCursor(String cursor, int pageSize, String sortBy);
+    PageResponse<?> getAlbumsByName(int pageNo, int pageSize, String sortBy, String name, CountMode countMode);
+    PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search, CountMode countMode);
 }
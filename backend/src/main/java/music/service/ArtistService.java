@@ -1,8 +1,11 @@
 package music.service;
 
+import music.constant.CountMode;
 import music.dto.request.*;
 import music.dto.response.ArtistResponse;
+import music.dto.response.CursorPageResponse;
 import music.dto.response.PageResponse;
+import music.dto.response.SongStatusResponse;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -11,6 +14,7 @@ import java.util.List;
 public interface ArtistService {
     long addArtist(String artistName, UserRequest userRequest, MultipartFile imageFile) throws IOException;
     ArtistResponse getArtist(Long id);
+    String getArtistETag(Long id);
     long updateArtist(Long id, UpdateArtistInfoRequest request, MultipartFile imageFile) throws IOException;
     long deleteArtist(Long id);
     long addMySong(SongRequest songRequest, MultipartFile imageFile, MultipartFile songFile) throws IOException;
@@ -19,11 +23,14 @@ public interface ArtistService {
     long updateMySong(Long songId, UpdateSongRequest songRequest, MultipartFile imageFile, MultipartFile songFile) throws IOException;
     long updateMyAlbum(Long albumId, AlbumRequest albumRequest, MultipartFile imageFile) throws IOException;
     long updateMyArtistPage(UpdateArtistInfoRequest request, MultipartFile imageFile) throws IOException;
+    SongStatusResponse getMySongStatus(Long songId);
+    long retryMySongIngestion(Long songId);
     long deleteMySong(Long songId);
     long deleteMyAlbum(Long albumId);
     long deleteMySongFromMyAlbum(Long songId, Long albumId);
     PageResponse<?> getAllArtists(int pageNo, int pageSize, String sortBy);
-    PageResponse<?> getArtistsByName(int pageNo, int pageSize, String sortBy, String name);
-    PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search);
+    CursorPageResponse<?> getAllArtistsByCursor(String cursor, int pageSize, String sortBy);
+    PageResponse<?> getArtistsByName(int pageNo, int pageSize, String sortBy, String name, CountMode countMode);
+    PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search, CountMode countMode);
     List<?> getTopArtists();
 }
@@ -0,0 +1,173 @@
+package music.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import music.exception.ResourceNotFoundException;
+import music.repository.SongRepository;
+import music.storage.AudioFileCache;
+import music.storage.MediaStorage;
+import music.utils.ETagUtil;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Serves song audio with single byte range support (206 Partial Content, 416 when the range starts
+ * past the end). Multiple ranges and a Range whose If-Range does not match are answered with the
+ * whole file, as RFC 9110 allows.
+ *
+ * Audio kept on the local filesystem by the storage is served from there, remote audio from the
+ * {@link AudioFileCache}. The body is written with FileChannel.transferTo; the servlet output stream
+ * is not a socket channel, so the JDK copies through a small buffer rather than the kernel's
+ * sendfile, but nothing is read into the heap as a whole.
+ *
+ * Metrics: song.stream.bytes (bytes sent), song.stream.requests (tag status=200|206|416).
+ */
+@Service
+@Slf4j
+public class AudioStreamService {
+    private static final MediaType DEFAULT_AUDIO_TYPE = MediaType.parseMediaType("audio/mpeg");
+
+    private final SongRepository songRepository;
+    private final MediaStorage mediaStorage;
+    private final AudioFileCache audioFileCache;
+    private final ETagUtil eTagUtil;
+    private final Counter bytesSent;
+    private final MeterRegistry meterRegistry;
+
+    public AudioStreamService(SongRepository songRepository,
+                              MediaStorage mediaStorage,
+                              AudioFileCache audioFileCache,
+                              ETagUtil eTagUtil,
+                              MeterRegistry meterRegistry) {
+        this.songRepository = songRepository;
+        this.mediaStorage = mediaStorage;
+        this.audioFileCache = audioFileCache;
+        this.eTagUtil = eTagUtil;
+        this.meterRegistry = meterRegistry;
+        this.bytesSent = Counter.builder("song.stream.bytes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public void stream(Long songId, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String songUrl = songRepository.findSongUrlById(songId)
+                .orElseThrow(() -> new ResourceNotFoundException("Song not found or not playable yet"));
+
+        try (FileChannel channel = openAudio(songUrl)) {
+            long length = channel.size();
+            // Media under a URL never changes, the URL identifies the content
+            String eTag = eTagUtil.generate(songUrl);
+
+            response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+            response.setHeader(HttpHeaders.ETAG, eTag);
+            response.setContentType(MediaTypeFactory.getMediaType(songUrl)
+                    .filter(type -> "audio".equals(type.getType()))
+                    .orElse(DEFAULT_AUDIO_TYPE)
+                    .toString());
+
+            HttpRange range = requestedRange(request, eTag);
+            long start = 0;
+            long end = length - 1;
+            int status = HttpStatus.OK.value();
+            if (range != null) {
+                // HttpRange does not validate against the length: "bytes=1000-" on 500 bytes
+                // starts at 1000, "bytes=-0" starts at the length
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+                if (length == 0 || start >= length || start > end) {
+                    countRequest(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                status = HttpStatus.PARTIAL_CONTENT.value();
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+
+            long count = Math.max(0, end - start + 1);
+            countRequest(status);
+            response.setStatus(status);
+            response.setContentLengthLong(count);
+            if ("HEAD".equals(request.getMethod())) {
+                return;
+            }
+            send(channel, start, count, response);
+        }
+    }
+
+    /**
+     * Opens the audio at the URL from the storage's local file or the cache, downloading it on a miss.
+     */
+    public FileChannel openAudio(String songUrl) throws IOException {
+        Path local = mediaStorage.localFile(songUrl).orElse(null);
+        if (local != null) {
+            return FileChannel.open(local, StandardOpenOption.READ);
+        }
+        try {
+            return FileChannel.open(audioFileCache.get(songUrl), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            // Evicted between the lookup and the open
+            return FileChannel.open(audioFileCache.get(songUrl), StandardOpenOption.READ);
+        }
+    }
+
+    // Null when the whole file is to be sent
+    private HttpRange requestedRange(HttpServletRequest request, String eTag) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(eTag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            // An invalid Range header is ignored
+            return null;
+        }
+    }
+
+    private void send(FileChannel channel, long start, long count, HttpServletResponse response) throws IOException {
+        WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+        long position = start;
+        long remaining = count;
+        try {
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        } catch (IOException e) {
+            // Players drop connections when seeking, nothing to answer anymore
+            log.debug("Audio stream interrupted after {} bytes", count - remaining, e);
+        } finally {
+            bytesSent.increment(count - remaining);
+        }
+    }
+
+    private void countRequest(int status) {
+        meterRegistry.counter("song.stream.requests", "status", String.valueOf(status)).increment();
+    }
+}
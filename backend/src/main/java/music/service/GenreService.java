@@ -1,9 +1,11 @@
 package music.service;
 
+import music.dto.response.GenreFacetResponse;
 import music.dto.response.SearchGenreResponse;
 
 import java.util.List;
 
 public interface GenreService {
     List<SearchGenreResponse> getAllGenres();
+    List<GenreFacetResponse> getGenreFacets(String songName);
 }
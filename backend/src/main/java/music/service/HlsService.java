@@ -0,0 +1,220 @@
+package music.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import music.exception.ResourceNotFoundException;
+import music.hls.Mp3Segmenter;
+import music.model.SongHls;
+import music.repository.SongHlsRepository;
+import music.repository.SongRepository;
+import music.utils.ETagUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * HLS for song audio without re-encoding: segments are byte ranges of the stored MP3, served as
+ * packed audio (RFC 8216 section 3.4). Each segment starts with an ID3 PRIV tag carrying its
+ * start time, which players need to line up packed audio segments.
+ *
+ * Segments are cut when the audio is ingested; songs uploaded before get theirs on the first
+ * playlist request. Audio that is not MPEG gets an empty segment list, stored like any other so
+ * it is not scanned again, and answers 404: players fall back to the whole file. Segment lists
+ * are cached by audio URL, and segment URIs carry a version of that URL, so replacing the audio
+ * never serves the old cuts. A segment may start with a frame whose bit reservoir points into the previous
+ * segment; players decoding from that segment on lose at most that first frame.
+ *
+ * Metrics: "cache.*" with tag cache=songHls.
+ */
+@Service
+@Slf4j
+public class HlsService {
+    private static final byte[] TIMESTAMP_OWNER =
+            "com.apple.streaming.transportStreamTimestamp\0".getBytes(StandardCharsets.ISO_8859_1);
+    // 10 byte frame header, owner, 8 byte timestamp
+    private static final int PRIV_FRAME_SIZE = 10 + TIMESTAMP_OWNER.length + 8;
+    private static final int TIMESTAMP_TAG_SIZE = 10 + PRIV_FRAME_SIZE;
+
+    private final SongRepository songRepository;
+    private final SongHlsRepository songHlsRepository;
+    private final AudioStreamService audioStreamService;
+    private final ETagUtil eTagUtil;
+    private final long segmentDurationMicros;
+    private final Cache<String, List<SongHls.Segment>> segments;
+
+    public HlsService(SongRepository songRepository,
+                      SongHlsRepository songHlsRepository,
+                      AudioStreamService audioStreamService,
+                      ETagUtil eTagUtil,
+                      @Value("${hls.segmentDuration}") long segmentDuration,
+                      @Value("${hls.cacheMaximumSize}") long cacheMaximumSize,
+                      MeterRegistry meterRegistry) {
+        this.songRepository = songRepository;
+        this.songHlsRepository = songHlsRepository;
+        this.audioStreamService = audioStreamService;
+        this.eTagUtil = eTagUtil;
+        this.segmentDurationMicros = segmentDuration * 1000;
+        this.segments = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, segments, "songHls");
+    }
+
+    /**
+     * Cuts an MP3 file into segments of about {@code hls.segmentDuration}, none when it is not MPEG audio.
+     *
+     * @throws IOException if the file cannot be read
+     */
+    public List<SongHls.Segment> segment(InputStream audio) throws IOException {
+        return Mp3Segmenter.segment(audio, segmentDurationMicros);
+    }
+
+    /**
+     * Stores the segments of the audio at the URL, replacing those of the song's previous audio.
+     */
+    public void save(Long songId, String songUrl, List<SongHls.Segment> songSegments) {
+        SongHls songHls = songHlsRepository.findById(songId)
+                .orElseGet(() -> new SongHls(songId, null, null));
+        songHls.setSongUrl(songUrl);
+        songHls.setSegments(songSegments);
+        songHlsRepository.save(songHls);
+    }
+
+    public String getPlaylist(Long songId) throws IOException {
+        String songUrl = findSongUrl(songId);
+        List<SongHls.Segment> songSegments = getSegments(songId, songUrl);
+        String version = version(songUrl);
+
+        long longestMicros = songSegments.stream().mapToLong(SongHls.Segment::durationMicros).max().orElse(0);
+        StringBuilder playlist = new StringBuilder()
+                .append("#EXTM3U\n")
+                .append("#EXT-X-VERSION:3\n")
+                .append("#EXT-X-TARGETDURATION:").append((longestMicros + 999_999) / 1_000_000).append('\n')
+                .append("#EXT-X-MEDIA-SEQUENCE:0\n")
+                .append("#EXT-X-PLAYLIST-TYPE:VOD\n");
+        for (int i = 0; i < songSegments.size(); i++) {
+            playlist.append("#EXTINF:")
+                    .append(String.format(Locale.ROOT, "%.3f", songSegments.get(i).durationMicros() / 1_000_000.0))
+                    .append(",\n")
+                    .append(i).append(".mp3?v=").append(version).append('\n');
+        }
+        return playlist.append("#EXT-X-ENDLIST\n").toString();
+    }
+
+    public void writeSegment(Long songId, int sequence, String version, HttpServletResponse response) throws IOException {
+        String songUrl = findSongUrl(songId);
+        // A playlist of the replaced audio, its byte ranges would cut the new file anywhere
+        if (!version(songUrl).equals(version)) {
+            throw new ResourceNotFoundException("Segment not found");
+        }
+        List<SongHls.Segment> songSegments = getSegments(songId, songUrl);
+        if (sequence < 0 || sequence >= songSegments.size()) {
+            throw new ResourceNotFoundException("Segment not found");
+        }
+        SongHls.Segment segment = songSegments.get(sequence);
+
+        try (FileChannel channel = audioStreamService.openAudio(songUrl)) {
+            response.setContentType("audio/mpeg");
+            response.setContentLengthLong(TIMESTAMP_TAG_SIZE + segment.length());
+            OutputStream output = response.getOutputStream();
+            output.write(timestampTag(segment.startMicros()));
+
+            WritableByteChannel out = Channels.newChannel(output);
+            long position = segment.offset();
+            long remaining = segment.length();
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        } catch (IOException e) {
+            if (!response.isCommitted()) {
+                throw e;
+            }
+            // Players drop connections when seeking, nothing to answer anymore
+            log.debug("HLS segment {} of song {} interrupted", sequence, songId, e);
+        }
+    }
+
+    private String findSongUrl(Long songId) {
+        return songRepository.findSongUrlById(songId)
+                .orElseThrow(() -> new ResourceNotFoundException("Song not found or not playable yet"));
+    }
+
+    // Bumped with the audio, so players never mix up segments of the old and new file
+    private String version(String songUrl) {
+        return eTagUtil.generate(songUrl).replace("\"", "");
+    }
+
+    private List<SongHls.Segment> getSegments(Long songId, String songUrl) throws IOException {
+        List<SongHls.Segment> songSegments;
+        try {
+            songSegments = segments.get(songUrl, url -> load(songId, url));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (songSegments.isEmpty()) {
+            throw new ResourceNotFoundException("HLS is not available for this song");
+        }
+        return songSegments;
+    }
+
+    private List<SongHls.Segment> load(Long songId, String songUrl) {
+        SongHls songHls = songHlsRepository.findById(songId)
+                .filter(existing -> songUrl.equals(existing.getSongUrl()))
+                .orElse(null);
+        if (songHls != null) {
+            return songHls.getSegments();
+        }
+
+        // Audio ingested before segmentation existed
+        List<SongHls.Segment> songSegments;
+        try (FileChannel channel = audioStreamService.openAudio(songUrl)) {
+            songSegments = segment(Channels.newInputStream(channel));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            save(songId, songUrl, songSegments);
+        } catch (DataIntegrityViolationException e) {
+            // Saved by a concurrent request, or the song was deleted meanwhile
+            log.debug("HLS segments of song {} not saved", songId, e);
+        }
+        return songSegments;
+    }
+
+    // ID3v2.4 tag with the PRIV frame giving the segment's first sample time on the 90kHz MPEG clock
+    private static byte[] timestampTag(long startMicros) {
+        long timestamp = (startMicros * 9 / 100) & 0x1FFFFFFFFL;
+        ByteBuffer tag = ByteBuffer.allocate(TIMESTAMP_TAG_SIZE);
+        tag.put(new byte[]{'I', 'D', '3', 4, 0, 0});
+        // Both sizes are below 128, their syncsafe form is the plain value
+        tag.putInt(PRIV_FRAME_SIZE);
+        tag.put(new byte[]{'P', 'R', 'I', 'V'});
+        tag.putInt(PRIV_FRAME_SIZE - 10);
+        tag.putShort((short) 0);
+        tag.put(TIMESTAMP_OWNER);
+        tag.putLong(timestamp);
+        return tag.array();
+    }
+}
@@ -0,0 +1,5 @@
+package music.service;
+
+public interface HomeService {
+    byte[] getHomeFeed();
+}
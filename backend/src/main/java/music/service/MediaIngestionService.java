@@ -0,0 +1,329 @@
+package music.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import music.constant.CatalogType;
+import music.constant.MediaKind;
+import music.constant.SongStatus;
+import music.event.CatalogChangedEvent;
+import music.event.SongGenresChangedEvent;
+import music.exception.AudioUploadException;
+import music.exception.ImageUploadException;
+import music.exception.InvalidDataException;
+import music.model.Song;
+import music.model.SongHls;
+import music.repository.SongListingRepository;
+import music.repository.SongRepository;
+import music.storage.MediaStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Uploads song media off the request path.
+ *
+ * The song services save the song in PROCESSING state and hand the files over; once their
+ * transaction has committed, the files are moved to {@code stagingDir/<songId>/} and the request
+ * returns. Image and audio are then stored in the {@link MediaStorage} in parallel on a bounded
+ * pool, outside any transaction, and a short transaction stores the URLs and marks the song READY. A new song
+ * only gets its listing row and catalog events at that point, so it is not shown before it plays.
+ * The audio is cut into HLS segments from its staged copy on another thread of the pool while
+ * it uploads (see {@link HlsService}).
+ *
+ * A failed upload leaves the song FAILED with the staged files kept for {@link #retry}.
+ * PROCESSING songs found at startup are resumed from their staged files, or marked FAILED
+ * when the files are gone. Assumes a single instance, like the like counter.
+ */
+@Service
+@Slf4j
+public class MediaIngestionService {
+    private static final String IMAGE = "image";
+    private static final String AUDIO = "audio";
+    private static final int MAX_FAILURE_REASON_LENGTH = 512;
+    private static final int FINISH_ATTEMPTS = 3;
+
+    // Segments are null when the staged audio could not be read, empty when it is not MPEG audio
+    private record StoredAudio(String url, List<SongHls.Segment> segments) {
+    }
+
+    private final SongRepository songRepository;
+    private final SongListingRepository songListingRepository;
+    private final MediaStorage mediaStorage;
+    private final HlsService hlsService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Path stagingDir;
+    private final ThreadPoolExecutor executor;
+
+    public MediaIngestionService(SongRepository songRepository,
+                                 SongListingRepository songListingRepository,
+                                 MediaStorage mediaStorage,
+                                 HlsService hlsService,
+                                 ApplicationEventPublisher eventPublisher,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${mediaIngestion.stagingDir}") String stagingDir,
+                                 @Value("${mediaIngestion.threads}") int threads,
+                                 @Value("${mediaIngestion.queueCapacity}") int queueCapacity,
+                                 MeterRegistry meterRegistry) {
+        this.songRepository = songRepository;
+        this.songListingRepository = songListingRepository;
+        this.mediaStorage = mediaStorage;
+        this.hlsService = hlsService;
+        this.eventPublisher = eventPublisher;
+        // Also used from afterCommit, where the finished transaction is still bound
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.stagingDir = Paths.get(stagingDir);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "media-ingestion-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "mediaIngestion");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeInterrupted() {
+        List<Long> songIds = songRepository.findAllIdsByStatus(SongStatus.PROCESSING);
+        for (Long songId : songIds) {
+            if (hasStagedMedia(songId)) {
+                submit(songId);
+            } else {
+                markFailed(songId, SongStatus.PROCESSING, "Media upload was interrupted, upload the files again");
+            }
+        }
+        if (!songIds.isEmpty()) {
+            log.info("Resumed media ingestion of {} songs", songIds.size());
+        }
+    }
+
+    /**
+     * Uploads the given files (either may be null) once the current transaction commits.
+     * The caller must have set the song to PROCESSING in that transaction.
+     */
+    public void ingestAfterCommit(Long songId, MultipartFile imageFile, MultipartFile audioFile) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // Still on the request thread, the multipart temp files exist until it returns
+                try {
+                    stage(songId, imageFile, audioFile);
+                } catch (IOException e) {
+                    log.warn("Failed to stage media of song {}", songId, e);
+                    markFailed(songId, SongStatus.PROCESSING, "Failed to store the uploaded files, upload them again");
+                    return;
+                }
+                submit(songId);
+            }
+        });
+    }
+
+    /**
+     * Uploads the staged files of a FAILED song again.
+     *
+     * @throws InvalidDataException if the song is not FAILED or its staged files are gone
+     */
+    public void retry(Long songId) {
+        if (!hasStagedMedia(songId)) {
+            throw new InvalidDataException("No media left to upload for this song, upload the files again");
+        }
+        Integer updated = transactionTemplate.execute(status ->
+                songRepository.updateStatus(songId, SongStatus.FAILED, SongStatus.PROCESSING, null));
+        if (updated == null || updated == 0) {
+            throw new InvalidDataException("Only a failed upload can be retried");
+        }
+        submit(songId);
+    }
+
+    /**
+     * Deletes the staged files of a song once the current transaction commits, for deleted songs.
+     */
+    public void discardAfterCommit(Long songId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    FileSystemUtils.deleteRecursively(stagingDir.resolve(songId.toString()));
+                } catch (IOException e) {
+                    log.warn("Failed to delete staged media of song {}", songId, e);
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Interrupted songs stay PROCESSING and are resumed at the next start
+        executor.shutdownNow();
+    }
+
+    private void stage(Long songId, MultipartFile imageFile, MultipartFile audioFile) throws IOException {
+        Path songDir = stagingDir.resolve(songId.toString());
+        // Files of an earlier failed upload are replaced by the new ones
+        FileSystemUtils.deleteRecursively(songDir);
+        Files.createDirectories(songDir);
+        // transferTo(File) moves the multipart temp file when it can instead of copying it
+        if (imageFile != null) {
+            imageFile.transferTo(songDir.resolve(IMAGE).toAbsolutePath().toFile());
+        }
+        if (audioFile != null) {
+            audioFile.transferTo(songDir.resolve(AUDIO).toAbsolutePath().toFile());
+        }
+    }
+
+    private void submit(Long songId) {
+        Path image = stagingDir.resolve(songId.toString()).resolve(IMAGE);
+        Path audio = stagingDir.resolve(songId.toString()).resolve(AUDIO);
+        CompletableFuture<String> imageUrl;
+        CompletableFuture<String> audioUrl;
+        CompletableFuture<List<SongHls.Segment>> segments;
+        try {
+            imageUrl = Files.exists(image)
+                    ? CompletableFuture.supplyAsync(() -> uploadImage(image), executor)
+                    : CompletableFuture.completedFuture(null);
+            audioUrl = Files.exists(audio)
+                    ? CompletableFuture.supplyAsync(() -> uploadAudio(audio), executor)
+                    : CompletableFuture.completedFuture(null);
+            segments = Files.exists(audio)
+                    ? CompletableFuture.supplyAsync(() -> segment(songId, audio), executor)
+                    : CompletableFuture.completedFuture(null);
+        } catch (RejectedExecutionException e) {
+            markFailed(songId, SongStatus.PROCESSING, "Too many uploads in progress, please retry later");
+            return;
+        }
+        CompletableFuture<StoredAudio> storedAudio = audioUrl.thenCombine(segments, (uploadedAudioUrl, audioSegments) ->
+                uploadedAudioUrl == null ? null : new StoredAudio(uploadedAudioUrl, audioSegments));
+
+        imageUrl.thenCombine(storedAudio, (uploadedImageUrl, uploadedAudio) -> {
+            finish(songId, uploadedImageUrl, uploadedAudio);
+            return null;
+        }).whenComplete((result, e) -> {
+            if (e != null) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                log.warn("Media ingestion of song {} failed", songId, cause);
+                markFailed(songId, SongStatus.PROCESSING, cause.getMessage());
+            }
+        });
+    }
+
+    private String uploadImage(Path image) {
+        try {
+            String url = mediaStorage.store(new FileSystemResource(image), MediaKind.IMAGE);
+            if (url == null) {
+                throw new ImageUploadException("Failed to upload image");
+            }
+            return url;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String uploadAudio(Path audio) {
+        try {
+            String url = mediaStorage.store(new FileSystemResource(audio), MediaKind.AUDIO);
+            if (url == null) {
+                throw new AudioUploadException("Failed to upload audio");
+            }
+            return url;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private List<SongHls.Segment> segment(Long songId, Path audio) {
+        try (InputStream input = Files.newInputStream(audio)) {
+            return hlsService.segment(input);
+        } catch (IOException e) {
+            // Not fatal, the song still streams as a whole file
+            log.warn("Failed to cut HLS segments of song {}", songId, e);
+            return null;
+        }
+    }
+
+    private void finish(Long songId, String imageUrl, StoredAudio audio) {
+        // The song may be edited while its media uploads
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> applyUrls(songId, imageUrl, audio));
+                break;
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == FINISH_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+        try {
+            FileSystemUtils.deleteRecursively(stagingDir.resolve(songId.toString()));
+        } catch (IOException e) {
+            log.warn("Failed to delete staged media of song {}", songId, e);
+        }
+    }
+
+    private void applyUrls(Long songId, String imageUrl, StoredAudio audio) {
+        Song song = songRepository.findById(songId).orElse(null);
+        if (song == null) {
+            // Deleted while uploading
+            return;
+        }
+        boolean firstRelease = song.getSongUrl() == null;
+        if (imageUrl != null) {
+            song.setImageUrl(imageUrl);
+        }
+        if (audio != null) {
+            song.setSongUrl(audio.url());
+            if (audio.segments() != null) {
+                hlsService.save(songId, audio.url(), audio.segments());
+            }
+        }
+        song.setStatus(SongStatus.READY);
+        song.setFailureReason(null);
+        songRepository.saveAndFlush(song);
+
+        songListingRepository.refreshBySongIds(List.of(songId));
+        eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogType.SONG, songId, song.getName(), song.getLikeCount()));
+        if (firstRelease) {
+            eventPublisher.publishEvent(new SongGenresChangedEvent(songId, songRepository.findGenreIdsById(songId)));
+        }
+    }
+
+    private void markFailed(Long songId, SongStatus from, String reason) {
+        String failureReason = reason == null ? "Media upload failed"
+                : reason.substring(0, Math.min(reason.length(), MAX_FAILURE_REASON_LENGTH));
+        transactionTemplate.executeWithoutResult(status ->
+                songRepository.updateStatus(songId, from, SongStatus.FAILED, failureReason));
+    }
+
+    private boolean hasStagedMedia(Long songId) {
+        Path songDir = stagingDir.resolve(songId.toString());
+        return Files.exists(songDir.resolve(IMAGE)) || Files.exists(songDir.resolve(AUDIO));
+    }
+}
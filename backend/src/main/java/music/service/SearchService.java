@@ -0,0 +1,7 @@
+package music.service;
+
+import music.dto.response.SuggestResponse;
+
+public interface SearchService {
+    SuggestResponse suggest(String prefix, int limit);
+}
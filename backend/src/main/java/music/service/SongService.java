@@ -1,9 +1,12 @@
 package music.service;
 
+import music.constant.CountMode;
 import music.dto.request.SongRequest;
 import music.dto.request.UpdateSongRequest;
+import music.dto.response.CursorPageResponse;
 import music.dto.response.PageResponse;
 import music.dto.response.SongResponse;
+import music.dto.response.SongStatusResponse;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -12,13 +15,21 @@ import java.util.List;
 public interface SongService {
     long addSong(SongRequest request, MultipartFile imageFile, MultipartFile songFile) throws IOException;
     SongResponse getSong(Long id);
+    String getSongETag(Long id);
     long updateSong(Long id, UpdateSongRequest request, MultipartFile imageFile, MultipartFile songFile) throws IOException;
     long deleteSong(Long id);
+    long likeSong(Long id);
+    long unlikeSong(Long id);
+    SongStatusResponse getSongStatus(Long id);
+    long retrySongIngestion(Long id);
     PageResponse<?> getAllSongs(int pageNo, int pageSize, String sortBy);
-    PageResponse<?> getSongsByName(int pageNo, int pageSize, String sortBy, String name);
+    CursorPageResponse<?> getAllSongsByCursor(String cursor, int pageSize, String sortBy);
+    PageResponse<?> getSongsByName(int pageNo, int pageSize, String sortBy, String name, CountMode countMode);
     PageResponse<?> getSongsByGenre(int pageNo, int pageSize, String sortBy, Integer genreId);
-    PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search);
-    List<?> getFeaturedSongs();
+    PageResponse<?> getSongsByGenres(int pageNo, int pageSize, String sortBy, List<Integer> genreIds, boolean matchAll, String name);
+    CursorPageResponse<?> getSongsByGenreByCursor(String cursor, int pageSize, String sortBy, Integer genreId);
+    PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search, CountMode countMode);
+    List<?> getFeaturedSongs(boolean weighted);
     List<?> getMadeForYouSongs();
     List<?> getTrendingSongs();
 }
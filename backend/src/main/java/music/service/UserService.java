@@ -1,5 +1,6 @@
 package music.service;
 
+import music.constant.CountMode;
 import music.dto.request.UpdateInfoRequest;
 import music.dto.request.UserRequest;
 import music.dto.response.PageResponse;
@@ -18,5 +19,5 @@ public interface UserService {
     long addRoleToUser(String username, String roleName);
     long deleteRoleFromUser(String username, String roleName);
     PageResponseCriteria<?> sortAndCriteriaSearch(int offset, int pageSize, String sortBy, String... search);
-    PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search);
+    PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search, CountMode countMode);
 }
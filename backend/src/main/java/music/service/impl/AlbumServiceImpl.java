@@ -1,71 +1,103 @@
 package music.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import music.constant.CatalogType;
+import music.constant.CountMode;
+import music.constant.MediaKind;
 import music.dto.request.AlbumRequest;
 import music.dto.request.UpdateAlbumRequest;
 import music.dto.response.AlbumResponse;
+import music.dto.response.CursorPageResponse;
 import music.dto.response.PageResponse;
 import music.dto.response.SearchAlbumResponse;
 import music.dto.response.SongResponse;
+import music.event.CatalogChangedEvent;
 import music.exception.ImageUploadException;
 import music.exception.ResourceNotFoundException;
 import music.model.Album;
 import music.model.Artist;
 import music.repository.AlbumRepository;
 import music.repository.ArtistRepository;
+import music.repository.SongListingRepository;
 import music.repository.search.AlbumSearchRepository;
-import music.repository.specification.AlbumSpecificationBuilder;
-import music.repository.specification.SearchOperator;
+import music.repository.search.KeysetSearchRepository;
+import music.repository.specification.SearchFilterParser;
+import music.search.CatalogNameIndex;
 import music.service.AlbumService;
-import music.service.CloudinaryService;
+import music.storage.MediaStorage;
+import music.utils.CursorUtil;
+import music.utils.ETagUtil;
 import music.utils.MultipartFileUtil;
+import music.utils.PageCountUtil;
 import music.utils.SortUtil;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
 public class AlbumServiceImpl implements AlbumService {
     private final AlbumRepository albumRepository;
     private final ArtistRepository artistRepository;
-    private final CloudinaryService cloudinaryService;
+    private final SongListingRepository songListingRepository;
+    private final MediaStorage mediaStorage;
     private final AlbumSearchRepository albumSearchRepository;
     private final SortUtil sortUtil;
     private final MultipartFileUtil multipartFileUtil;
+    private final KeysetSearchRepository keysetSearchRepository;
+    private final CursorUtil cursorUtil;
+    private final ETagUtil eTagUtil;
+    private final PageCountUtil pageCountUtil;
+    private final SearchFilterParser searchFilterParser;
+    private final CatalogNameIndex catalogNameIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    // Image uploads run before it, so no connection is held while they wait for the storage
+    private final TransactionTemplate transactionTemplate;
 
     @Override
-    @Transactional
     public long addAlbum(AlbumRequest albumRequest,
                          MultipartFile imageFile) throws IOException {
-        Artist artist = artistRepository.findByName(albumRequest.getArtistName())
-                .orElseThrow(() -> new ResourceNotFoundException("Artist not found"));
-
-        Album album = new Album();
+        if (artistRepository.findByName(albumRequest.getArtistName()).isEmpty())
+            throw new ResourceNotFoundException("Artist not found");
 
         multipartFileUtil.isImageValid(imageFile);
-        String imageUrl = cloudinaryService.uploadImage(imageFile);
+        String imageUrl = mediaStorage.store(imageFile, MediaKind.IMAGE);
         if (imageUrl == null) {
             throw new ImageUploadException("Failed to upload image");
         }
 
-        album.setName(albumRequest.getName());
-        album.setImageUrl(imageUrl);
-        album.setArtist(artist);
+        return transactionTemplate.execute(status -> {
+            Artist artist = artistRepository.findByName(albumRequest.getArtistName())
+                    .orElseThrow(() -> new ResourceNotFoundException("Artist not found"));
+
+            Album album = new Album();
+            album.setName(albumRequest.getName());
+            album.setImageUrl(imageUrl);
+            album.setArtist(artist);
 
-        albumRepository.save(album);
+            albumRepository.save(album);
+            eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogType.ALBUM, album.getId(), album.getName()));
 
-        return album.getId();
+            return album.getId();
+        });
+    }
+
+    @Override
+    public String getAlbumETag(Long id) {
+        return eTagUtil.generate(albumRepository.findFingerprintById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Album not found")));
     }
 
     @Override
@@ -99,24 +131,34 @@ public class AlbumServiceImpl implements AlbumService {
     }
 
     @Override
-    @Transactional
     public long updateAlbum(Long id,
                             UpdateAlbumRequest updateAlbumRequest,
                             MultipartFile imageFile) throws IOException {
-        Album album = albumRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Album not found"));
+        if (!albumRepository.existsById(id))
+            throw new ResourceNotFoundException("Album not found");
 
-        album.setName(updateAlbumRequest.getName());
+        String imageUrl = null;
         if (imageFile != null) {
             multipartFileUtil.isImageValid(imageFile);
-            String imageUrl = cloudinaryService.uploadImage(imageFile);
+            imageUrl = mediaStorage.store(imageFile, MediaKind.IMAGE);
             if (imageUrl == null) {
                 throw new ImageUploadException("Failed to upload image");
             }
-
-            album.setImageUrl(imageUrl);
         }
 
+        String uploadedImageUrl = imageUrl;
+        transactionTemplate.executeWithoutResult(status -> {
+            Album album = albumRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Album not found"));
+
+            album.setName(updateAlbumRequest.getName());
+            if (uploadedImageUrl != null) {
+                album.setImageUrl(uploadedImageUrl);
+            }
+            songListingRepository.refreshByAlbumId(id);
+            eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogType.ALBUM, id, album.getName()));
+        });
+
         return id;
     }
 
@@ -124,6 +166,8 @@ public class AlbumServiceImpl implements AlbumService {
     @Transactional
     public long deleteAlbum(Long id) {
         albumRepository.deleteById(id);
+        songListingRepository.clearAlbum(id);
+        eventPublisher.publishEvent(CatalogChangedEvent.deleted(CatalogType.ALBUM, id));
         return id;
     }
 
@@ -148,64 +192,76 @@ public class AlbumServiceImpl implements AlbumService {
     }
 
     @Override
-    public PageResponse<?> getAlbumsByName(int pageNo, int pageSize, String sortBy, String name) {
+    public CursorPageResponse<?> getAllAlbumsByCursor(String cursor, int pageSize, String sortBy) {
+        Sort.Order order = sortUtil.resolveSortBy(sortBy).iterator().next();
+
+        List<CursorUtil.Position> positions = keysetSearchRepository.findPositions(Album.class,
+                null,
+                order,
+                cursorUtil.decode(cursor, order),
+                pageSize + 1);
+
+        List<Long> ids = positions.stream()
+                .limit(pageSize)
+                .map(CursorUtil.Position::id)
+                .toList();
+
+        Sort sort = Sort.by(order, new Sort.Order(order.getDirection(), "id"));
+        List<Album> albums = albumRepository.findAllByIdsAndSort(ids, sort);
+
+        return CursorPageResponse.builder()
+                .pageSize(pageSize)
+                .nextCursor(cursorUtil.nextCursor(order, positions, pageSize))
+                .items(albumsToSearchAlbumResponses(albums))
+                .build();
+    }
+
+    @Override
+    public PageResponse<?> getAlbumsByName(int pageNo, int pageSize, String sortBy, String name, CountMode countMode) {
         Sort sort = sortUtil.resolveSortBy(sortBy);
 
         Pageable pageable = PageRequest.of(pageNo, pageSize, sort);
 
-        Page<Long> ids = albumRepository.findAllIdsByName(name, pageable);
+        List<Long> matchingIds = catalogNameIndex.searchCandidates(CatalogType.ALBUM, name).orElse(null);
+        if (matchingIds != null && matchingIds.isEmpty()) {
+            return pageCountUtil.toPageResponse(new SliceImpl<>(List.of(), pageable, false), List.of(),
+                    CountMode.EXACT, null, () -> 0);
+        }
+
+        // Too broad a match for an id list goes through the LIKE query
+        Slice<Long> ids = matchingIds == null
+                ? albumRepository.findAllIdsByName(name, pageable)
+                : albumRepository.findAllIdsByIdIn(matchingIds, pageable);
 
         List<Album> albums = albumRepository.findAllByIdsAndSort(ids.getContent(), sort);
 
         List<SearchAlbumResponse> searchAlbumResponses = albumsToSearchAlbumResponses(albums);
 
-        return PageResponse.builder()
-                .pageNo(pageNo)
-                .pageSize(pageSize)
-                .totalPages(ids.getTotalPages())
-                .items(searchAlbumResponses)
-                .build();
+        if (matchingIds == null) {
+            return pageCountUtil.toPageResponse(ids, searchAlbumResponses, countMode,
+                    "album:name:" + pageCountUtil.normalize(name),
+                    () -> albumRepository.countByName(name));
+        }
+        return pageCountUtil.toPageResponse(ids, searchAlbumResponses, CountMode.EXACT, null, matchingIds::size);
     }
 
     @Override
-    public PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search) {
-        AlbumSpecificationBuilder builder = new AlbumSpecificationBuilder();
-
-        if (StringUtils.hasLength(search)) {
-            Pattern pattern = Pattern.compile("([,']?)(\\w+)(!:|!~|!=|>=|<=|[:~=><])(\\w+)");
-            Matcher matcher = pattern.matcher(search);
-
-            while (matcher.find()) {
-                String andOrLogic = matcher.group(1);
-                String key = matcher.group(2);
-                String operator = matcher.group(3);
-                String value = matcher.group(4);
-
-                if (andOrLogic != null && (andOrLogic.equals(SearchOperator.AND_OPERATOR) ||
-                        andOrLogic.equals(SearchOperator.OR_OPERATOR))) {
-                    builder.with(andOrLogic, key, operator, value, null, null);
-                } else {
-                    builder.with(key, operator, value, null, null);
-                }
-            }
-        }
-
+    public PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search, CountMode countMode) {
         Sort sort = sortUtil.resolveSortBy(sortBy);
 
         Pageable pageable = PageRequest.of(pageNo, pageSize, sort);
 
-        Page<Long> ids = albumSearchRepository.findIdsBySpecification(builder.build(), pageable);
+        Specification<Album> specification = searchFilterParser.compile(Album.class, search);
+
+        Slice<Long> ids = albumSearchRepository.findIdSliceBySpecification(specification, pageable);
 
         List<Album> albums = albumRepository.findAllByIdsAndSort(ids.getContent(), sort);
 
         List<SearchAlbumResponse> searchAlbumResponses = albumsToSearchAlbumResponses(albums);
 
-        return PageResponse.builder()
-                .pageNo(pageNo)
-                .pageSize(pageSize)
-                .totalPages(ids.getTotalPages())
-                .items(searchAlbumResponses)
-                .build();
+        return pageCountUtil.toPageResponse(ids, searchAlbumResponses, countMode,
+                "album:search:" + pageCountUtil.normalize(search),
+                () -> albumSearchRepository.countBySpecification(specification));
     }
 
     private List<SearchAlbumResponse> albumsToSearchAlbumResponses(List<Album> albums) {
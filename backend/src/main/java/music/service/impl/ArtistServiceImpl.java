@@ -1,10 +1,18 @@
 package music.service.impl;
 
+import music.constant.CatalogType;
+import music.constant.CountMode;
+import music.constant.MediaKind;
+import music.constant.SongStatus;
 import music.dto.request.*;
 import music.dto.response.ArtistResponse;
+import music.dto.response.CursorPageResponse;
 import music.dto.response.PageResponse;
 import music.dto.response.SearchArtistResponse;
 import music.dto.response.SongResponse;
+import music.dto.response.SongStatusResponse;
+import music.event.CatalogChangedEvent;
+import music.event.SongGenresChangedEvent;
 import music.exception.*;
 import music.mapper.ArtistMapper;
 import music.mapper.SongMapper;
@@ -12,32 +20,39 @@ import music.mapper.UserMapper;
 import music.model.*;
 import music.repository.*;
 import music.repository.search.ArtistSearchRepository;
-import music.repository.specification.ArtistSpecificationBuilder;
-import music.repository.specification.SearchOperator;
+import music.repository.search.KeysetSearchRepository;
+import music.repository.specification.SearchFilterParser;
+import music.search.CatalogNameIndex;
 import music.service.ArtistService;
-import music.service.CloudinaryService;
+import music.service.MediaIngestionService;
+import music.storage.MediaStorage;
+import music.utils.CursorUtil;
+import music.utils.ETagUtil;
 import music.utils.MultipartFileUtil;
+import music.utils.PageCountUtil;
 import music.utils.SortUtil;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.StringUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Service
 @RequiredArgsConstructor
@@ -48,14 +63,25 @@ public class ArtistServiceImpl implements ArtistService {
     private final RoleRepository roleRepository;
     private final ArtistMapper artistMapper;
     private final UserMapper userMapper;
-    private final CloudinaryService cloudinaryService;
+    private final MediaStorage mediaStorage;
     private final SongMapper songMapper;
     private final GenreRepository genreRepository;
+    private final MediaIngestionService mediaIngestionService;
     private final AlbumRepository albumRepository;
     private final SongRepository songRepository;
+    private final SongListingRepository songListingRepository;
     private final ArtistSearchRepository artistSearchRepository;
     private final SortUtil sortUtil;
     private final MultipartFileUtil multipartFileUtil;
+    private final KeysetSearchRepository keysetSearchRepository;
+    private final CursorUtil cursorUtil;
+    private final ETagUtil eTagUtil;
+    private final PageCountUtil pageCountUtil;
+    private final SearchFilterParser searchFilterParser;
+    private final CatalogNameIndex catalogNameIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    // Image uploads run before it, so no connection is held while they wait for the storage
+    private final TransactionTemplate transactionTemplate;
 
     @Value("${CLOUDINARY_MAX_IMAGE_SIZE}")
     private int maxImageSize;
@@ -64,7 +90,6 @@ public class ArtistServiceImpl implements ArtistService {
     private int maxAudioSize;
 
     @Override
-    @Transactional
     public long addArtist(String artistName,
                           UserRequest userRequest,
                           MultipartFile imageFile) throws IOException {
@@ -72,31 +97,15 @@ public class ArtistServiceImpl implements ArtistService {
             throw new DataInUseException("Artist name is in use");
 
         multipartFileUtil.isImageValid(imageFile);
-        String imageUrl = cloudinaryService.uploadImage(imageFile);
-
-        User user = userMapper.toUser(userRequest);
-        user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
-
-        Set<Role> roles = new HashSet<>();
-        userRequest.getRoles().forEach(roleRequest -> {
-            Role role = roleRepository.findByNameWithUsers(roleRequest.getName())
-                    .orElseThrow(() -> new ResourceNotFoundException("Role not found"));
-            roles.add(role);
-        });
-
-        roles.forEach(role -> role.getUsers().add(user));
+        String imageUrl = mediaStorage.store(imageFile, MediaKind.IMAGE);
 
-        userRepository.save(user);
-
-        Artist artist = new Artist();
-        artist.setName(artistName);
-        artist.setImageUrl(imageUrl);
-
-        artist.setUser(user);
-
-        artistRepository.save(artist);
+        return transactionTemplate.execute(status -> saveArtist(artistName, userRequest, imageUrl));
+    }
 
-        return artist.getId();
+    @Override
+    public String getArtistETag(Long id) {
+        return eTagUtil.generate(artistRepository.findFingerprintById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Artist not found")));
     }
 
     @Override
@@ -148,26 +157,40 @@ public class ArtistServiceImpl implements ArtistService {
     }
 
     @Override
-    @Transactional
     public long updateArtist(Long id,
                              UpdateArtistInfoRequest request,
                              MultipartFile imageFile) throws IOException {
-        Artist artist = artistRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Artist not found"));
+        if (!artistRepository.existsById(id))
+            throw new ResourceNotFoundException("Artist not found");
 
         multipartFileUtil.isImageValid(imageFile);
-        String imageUrl = cloudinaryService.uploadImage(imageFile);
+        String imageUrl = mediaStorage.store(imageFile, MediaKind.IMAGE);
 
-        artist.setBio(request.getBio());
-        artist.setImageUrl(imageUrl);
+        transactionTemplate.executeWithoutResult(status -> {
+            Artist artist = artistRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Artist not found"));
+            artist.setBio(request.getBio());
+            artist.setImageUrl(imageUrl);
+        });
 
         return id;
     }
 
     @Override
+    @Transactional
     public long deleteArtist(Long id) {
-        if (artistRepository.existsById(id))
+        if (artistRepository.existsById(id)) {
+            // Albums are removed along with their artist
+            List<Long> albumIds = albumRepository.findAllIdsByArtistId(id);
+            List<Long> songIds = songRepository.findAllIdsByArtistId(id);
             artistRepository.deleteById(id);
+            albumIds.forEach(songListingRepository::clearAlbum);
+            if (!songIds.isEmpty()) {
+                songListingRepository.refreshBySongIds(songIds);
+            }
+            eventPublisher.publishEvent(CatalogChangedEvent.deleted(CatalogType.ARTIST, id));
+            albumIds.forEach(albumId -> eventPublisher.publishEvent(CatalogChangedEvent.deleted(CatalogType.ALBUM, albumId)));
+        }
         return id;
     }
 
@@ -197,19 +220,9 @@ public class ArtistServiceImpl implements ArtistService {
         multipartFileUtil.isImageValid(imageFile);
         multipartFileUtil.isAudioValid(songFile);
 
-        String imageUrl = cloudinaryService.uploadImage(imageFile);
-        if (imageUrl == null) {
-            throw new ImageUploadException("Failed to upload image");
-        }
-
-        String songUrl = cloudinaryService.uploadAudio(songFile);
-        if (songUrl == null) {
-            throw new AudioUploadException("Failed to upload audio");
-        }
-
         Song song = songMapper.toSong(songRequest);
-        song.setImageUrl(imageUrl);
-        song.setSongUrl(songUrl);
+        // Listed and announced once its media is uploaded
+        song.setStatus(SongStatus.PROCESSING);
 
         Set<String> genreNames = songRequest.getGenreNames();
 
@@ -228,50 +241,39 @@ public class ArtistServiceImpl implements ArtistService {
         Album album = albumRepository.findByName(songRequest.getAlbumName())
                 .orElseThrow(() -> new ResourceNotFoundException("Album not found"));
 
-        genres.forEach(genre -> genre.getSongs().add(song));
         collaborateArtists.add(artist);
         song.setArtists(collaborateArtists);
         song.setAlbum(album);
 
         songRepository.save(song);
+        songRepository.addGenres(song.getId(), genres.stream().map(Genre::getId).toList());
+        mediaIngestionService.ingestAfterCommit(song.getId(), imageFile, songFile);
 
         return song.getId();
     }
 
     @Override
-    @Transactional
     public long addMyAlbum(AlbumRequest albumRequest, MultipartFile imageFile) throws IOException {
-        SecurityContext securityContext = SecurityContextHolder.getContext();
-        String username = securityContext.getAuthentication().getName();
-
-        Long userId = userRepository.findIdByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        Artist artist = artistRepository.findByUserId(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Artist not found"));
-
-        if (artist == null)
-            throw new InvalidDataException("There seems to be an issue with your artist profile. Please contact support");
-
-        boolean albumExisted = artist.getAlbums().stream()
-                .anyMatch(album -> album.getName().equals(albumRequest.getName()));
-
-        if (albumExisted)
-            throw new DataInUseException("You already have a album with that name");
-
-        Album album = new Album();
+        // Checked before the upload too, so a rejected request stores nothing
+        transactionTemplate.executeWithoutResult(status -> getMyArtistForNewAlbum(albumRequest.getName()));
 
         multipartFileUtil.isImageValid(imageFile);
-        String imageUrl = cloudinaryService.uploadImage(imageFile);
+        String imageUrl = mediaStorage.store(imageFile, MediaKind.IMAGE);
+
+        return transactionTemplate.execute(status -> {
+            Artist artist = getMyArtistForNewAlbum(albumRequest.getName());
 
-        album.setName(albumRequest.getName());
-        album.setImageUrl(imageUrl);
+            Album album = new Album();
+            album.setName(albumRequest.getName());
+            album.setImageUrl(imageUrl);
 
-        album.setArtist(artist);
+            album.setArtist(artist);
 
-        albumRepository.save(album);
+            albumRepository.save(album);
+            eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogType.ALBUM, album.getId(), album.getName()));
 
-        return album.getId();
+            return album.getId();
+        });
     }
 
     @Override
@@ -304,6 +306,7 @@ public class ArtistServiceImpl implements ArtistService {
             throw new AccessDenyException("You are not the artist of this album");
 
         song.setAlbum(album);
+        songListingRepository.refreshBySongIds(List.of(songId));
 
         return songId;
     }
@@ -336,24 +339,17 @@ public class ArtistServiceImpl implements ArtistService {
 
         songMapper.updateSong(song, songRequest);
 
-        if (imageFile != null) {
-            multipartFileUtil.isImageValid(imageFile);
-            String imageUrl = cloudinaryService.uploadImage(imageFile);
-            if (imageUrl == null) {
-                throw new ImageUploadException("Failed to upload image");
+        if (imageFile != null || songFile != null) {
+            if (song.getStatus() == SongStatus.PROCESSING) {
+                throw new DataInUseException("Media of this song is still being uploaded");
             }
-
-            song.setImageUrl(imageUrl);
-        }
-
-        if (songFile != null) {
-            multipartFileUtil.isAudioValid(songFile);
-            String songUrl = cloudinaryService.uploadAudio(songFile);
-            if (songUrl == null) {
-                throw new AudioUploadException("Failed to upload audio");
-            }
-
-            song.setSongUrl(songUrl);
+            if (imageFile != null)
+                multipartFileUtil.isImageValid(imageFile);
+            if (songFile != null)
+                multipartFileUtil.isAudioValid(songFile);
+            // The current media is served until the new one is uploaded
+            song.setStatus(SongStatus.PROCESSING);
+            mediaIngestionService.ingestAfterCommit(song.getId(), imageFile, songFile);
         }
 
         Set<String> genreNames = songRequest.getGenreNames();
@@ -363,65 +359,73 @@ public class ArtistServiceImpl implements ArtistService {
             throw new ResourceNotFoundException("One or more genres were not found");
         }
 
-        genres.forEach(genre -> genre.getSongs().add(song));
+        songRepository.addGenres(song.getId(), genres.stream().map(Genre::getId).toList());
+        // Not released yet: the listing row and events come with its first upload
+        if (song.getSongUrl() != null) {
+            songListingRepository.refreshBySongIds(List.of(song.getId()));
+            eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogType.SONG, song.getId(), song.getName(), song.getLikeCount()));
+            // Genres are added to the song's current ones
+            Set<Genre> allGenres = new HashSet<>(song.getGenres());
+            allGenres.addAll(genres);
+            eventPublisher.publishEvent(SongGenresChangedEvent.of(song.getId(), allGenres));
+        }
 
         return song.getId();
     }
 
     @Override
-    @Transactional
     public long updateMyAlbum(Long albumId,
                               AlbumRequest albumRequest,
                               MultipartFile imageFile) throws IOException {
-        SecurityContext securityContext = SecurityContextHolder.getContext();
-        String username = securityContext.getAuthentication().getName();
-
-        Long userId = userRepository.findIdByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
-
-        Artist artist = artistRepository.findByUserId(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Artist not found"));
-
-        if (artist == null)
-            throw new InvalidDataException("There seems to be an issue with your artist profile. Please contact support");
-
-        Album album = albumRepository.findById(albumId)
-                .orElseThrow(() -> new ResourceNotFoundException("Album not found"));
-
-        if (!artist.getAlbums().contains(album))
-            throw new AccessDenyException("You are not the artist of this album");
+        transactionTemplate.executeWithoutResult(status -> getMyAlbum(albumId));
 
         multipartFileUtil.isImageValid(imageFile);
+        String imageUrl = mediaStorage.store(imageFile, MediaKind.IMAGE);
 
-        String imageUrl = cloudinaryService.uploadImage(imageFile);
-        album.setName(albumRequest.getName());
-        album.setImageUrl(imageUrl);
+        return transactionTemplate.execute(status -> {
+            Album album = getMyAlbum(albumId);
+            album.setName(albumRequest.getName());
+            album.setImageUrl(imageUrl);
+            songListingRepository.refreshByAlbumId(album.getId());
+            eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogType.ALBUM, album.getId(), album.getName()));
 
-        return album.getId();
+            return album.getId();
+        });
     }
 
     @Override
-    @Transactional
     public long updateMyArtistPage(UpdateArtistInfoRequest request, MultipartFile imageFile) throws IOException {
-        SecurityContext securityContext = SecurityContextHolder.getContext();
-        String username = securityContext.getAuthentication().getName();
-
-        Long userId = userRepository.findIdByUsername(username)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+        getMyArtist();
 
-        Artist artist = artistRepository.findByUserId(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Artist not found"));
+        multipartFileUtil.isImageValid(imageFile);
+        String imageUrl = mediaStorage.store(imageFile, MediaKind.IMAGE);
 
-        if (artist == null)
-            throw new InvalidDataException("There seems to be an issue with your artist profile. Please contact support");
+        return transactionTemplate.execute(status -> {
+            Artist artist = getMyArtist();
+            artist.setBio(request.getBio());
+            artist.setImageUrl(imageUrl);
 
-        multipartFileUtil.isImageValid(imageFile);
+            return artist.getId();
+        });
+    }
 
-        String imageUrl = cloudinaryService.uploadImage(imageFile);
-        artist.setBio(request.getBio());
-        artist.setImageUrl(imageUrl);
+    @Override
+    @Transactional(readOnly = true)
+    public SongStatusResponse getMySongStatus(Long songId) {
+        Song song = getMySong(songId);
+        return SongStatusResponse.builder()
+                .id(song.getId())
+                .status(song.getStatus())
+                .failureReason(song.getFailureReason())
+                .build();
+    }
 
-        return artist.getId();
+    @Override
+    @Transactional(readOnly = true)
+    public long retryMySongIngestion(Long songId) {
+        getMySong(songId);
+        mediaIngestionService.retry(songId);
+        return songId;
     }
 
     @Override
@@ -440,6 +444,8 @@ public class ArtistServiceImpl implements ArtistService {
             throw new InvalidDataException("There seems to be an issue with your artist profile. Please contact support");
 
         songRepository.deleteById(songId);
+        eventPublisher.publishEvent(CatalogChangedEvent.deleted(CatalogType.SONG, songId));
+        mediaIngestionService.discardAfterCommit(songId);
 
         return songId;
     }
@@ -460,6 +466,8 @@ public class ArtistServiceImpl implements ArtistService {
             throw new InvalidDataException("There seems to be an issue with your artist profile. Please contact support");
 
         albumRepository.deleteById(albumId);
+        songListingRepository.clearAlbum(albumId);
+        eventPublisher.publishEvent(CatalogChangedEvent.deleted(CatalogType.ALBUM, albumId));
 
         return albumId;
     }
@@ -496,6 +504,7 @@ public class ArtistServiceImpl implements ArtistService {
 
         song.setAlbum(null);
         album.setSongs(new HashSet<>());
+        songListingRepository.refreshBySongIds(List.of(songId));
 
         return songId;
     }
@@ -521,64 +530,76 @@ public class ArtistServiceImpl implements ArtistService {
     }
 
     @Override
-    public PageResponse<?> getArtistsByName(int pageNo, int pageSize, String sortBy, String name) {
+    public CursorPageResponse<?> getAllArtistsByCursor(String cursor, int pageSize, String sortBy) {
+        Sort.Order order = sortUtil.resolveSortBy(sortBy, "followers").iterator().next();
+
+        List<CursorUtil.Position> positions = keysetSearchRepository.findPositions(Artist.class,
+                null,
+                order,
+                cursorUtil.decode(cursor, order),
+                pageSize + 1);
+
+        List<Long> ids = positions.stream()
+                .limit(pageSize)
+                .map(CursorUtil.Position::id)
+                .toList();
+
+        Sort sort = Sort.by(order, new Sort.Order(order.getDirection(), "id"));
+        List<Artist> artists = artistRepository.findAllByIdsAndSort(ids, sort);
+
+        return CursorPageResponse.builder()
+                .pageSize(pageSize)
+                .nextCursor(cursorUtil.nextCursor(order, positions, pageSize))
+                .items(artistsToArtistResponses(artists))
+                .build();
+    }
+
+    @Override
+    public PageResponse<?> getArtistsByName(int pageNo, int pageSize, String sortBy, String name, CountMode countMode) {
         Sort sort = sortUtil.resolveSortBy(sortBy, "followers");
 
         Pageable pageable = PageRequest.of(pageNo, pageSize, sort);
 
-        Page<Long> ids = artistRepository.findAllIdsByName(name, pageable);
+        List<Long> matchingIds = catalogNameIndex.searchCandidates(CatalogType.ARTIST, name).orElse(null);
+        if (matchingIds != null && matchingIds.isEmpty()) {
+            return pageCountUtil.toPageResponse(new SliceImpl<>(List.of(), pageable, false), List.of(),
+                    CountMode.EXACT, null, () -> 0);
+        }
+
+        // Too broad a match for an id list goes through the LIKE query
+        Slice<Long> ids = matchingIds == null
+                ? artistRepository.findAllIdsByName(name, pageable)
+                : artistRepository.findAllIdsByIdIn(matchingIds, pageable);
 
         List<Artist> artists = artistRepository.findAllByIdsAndSort(ids.getContent(), sort);
 
         List<SearchArtistResponse> artistResponses = artistsToArtistResponses(artists);
 
-        return PageResponse.builder()
-                .pageNo(pageNo)
-                .pageSize(pageSize)
-                .totalPages(ids.getTotalPages())
-                .items(artistResponses)
-                .build();
+        if (matchingIds == null) {
+            return pageCountUtil.toPageResponse(ids, artistResponses, countMode,
+                    "artist:name:" + pageCountUtil.normalize(name),
+                    () -> artistRepository.countByName(name));
+        }
+        return pageCountUtil.toPageResponse(ids, artistResponses, CountMode.EXACT, null, matchingIds::size);
     }
 
     @Override
-    public PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search) {
-        ArtistSpecificationBuilder builder = new ArtistSpecificationBuilder();
-
-        if (StringUtils.hasLength(search)) {
-            Pattern pattern = Pattern.compile("([,']?)(\\w+)(!:|!~|!=|>=|<=|[:~=><])(\\w+)");
-            Matcher matcher = pattern.matcher(search);
-
-            while (matcher.find()) {
-                String andOrLogic = matcher.group(1);
-                String key = matcher.group(2);
-                String operator = matcher.group(3);
-                String value = matcher.group(4);
-
-                if (andOrLogic != null && (andOrLogic.equals(SearchOperator.AND_OPERATOR) ||
-                        andOrLogic.equals(SearchOperator.OR_OPERATOR))) {
-                    builder.with(andOrLogic, key, operator, value, null, null);
-                } else {
-                    builder.with(key, operator, value, null, null);
-                }
-            }
-        }
-
+    public PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search, CountMode countMode) {
         Sort sort = sortUtil.resolveSortBy(sortBy, "followers");
 
         Pageable pageable = PageRequest.of(pageNo, pageSize, sort);
 
-        Page<Long> ids = artistSearchRepository.findIdsBySpecification(builder.build(), pageable);
+        Specification<Artist> specification = searchFilterParser.compile(Artist.class, search);
+
+        Slice<Long> ids = artistSearchRepository.findIdSliceBySpecification(specification, pageable);
 
         List<Artist> artists = artistRepository.findAllByIdsAndSort(ids.getContent(), sort);
 
         List<SearchArtistResponse> artistResponses = artistsToArtistResponses(artists);
 
-        return PageResponse.builder()
-                .pageNo(pageNo)
-                .pageSize(pageSize)
-                .totalPages(ids.getTotalPages())
-                .items(artistResponses)
-                .build();
+        return pageCountUtil.toPageResponse(ids, artistResponses, countMode,
+                "artist:search:" + pageCountUtil.normalize(search),
+                () -> artistSearchRepository.countBySpecification(specification));
     }
 
     @Override
@@ -587,6 +608,78 @@ public class ArtistServiceImpl implements ArtistService {
         return artistsToArtistResponses(artistRepository.findAllById(artistIds));
     }
 
+    private long saveArtist(String artistName, UserRequest userRequest, String imageUrl) {
+        User user = userMapper.toUser(userRequest);
+        user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
+
+        Set<Role> roles = new HashSet<>();
+        userRequest.getRoles().forEach(roleRequest -> {
+            Role role = roleRepository.findByName(roleRequest.getName())
+                    .orElseThrow(() -> new ResourceNotFoundException("Role not found"));
+            roles.add(role);
+        });
+
+        user.setRoles(roles);
+
+        userRepository.save(user);
+        roleRepository.addUserToRoles(user.getId(), roles.stream().map(Role::getId).toList());
+
+        Artist artist = new Artist();
+        artist.setName(artistName);
+        artist.setImageUrl(imageUrl);
+
+        artist.setUser(user);
+
+        artistRepository.save(artist);
+        eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogType.ARTIST, artist.getId(), artist.getName(), artist.getFollowers()));
+
+        return artist.getId();
+    }
+
+    private Artist getMyArtist() {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+
+        Long userId = userRepository.findIdByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+
+        return artistRepository.findByUserId(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("Artist not found"));
+    }
+
+    private Artist getMyArtistForNewAlbum(String albumName) {
+        Artist artist = getMyArtist();
+
+        boolean albumExisted = artist.getAlbums().stream()
+                .anyMatch(album -> album.getName().equals(albumName));
+
+        if (albumExisted)
+            throw new DataInUseException("You already have a album with that name");
+        return artist;
+    }
+
+    private Album getMyAlbum(Long albumId) {
+        Artist artist = getMyArtist();
+
+        Album album = albumRepository.findById(albumId)
+                .orElseThrow(() -> new ResourceNotFoundException("Album not found"));
+
+        if (!artist.getAlbums().contains(album))
+            throw new AccessDenyException("You are not the artist of this album");
+        return album;
+    }
+
+    // Song of the current artist, the way updateMySong checks it
+    private Song getMySong(Long songId) {
+        Artist artist = getMyArtist();
+
+        Song song = songRepository.findById(songId)
+                .orElseThrow(() -> new ResourceNotFoundException("Song not found"));
+        if (!song.getArtists().contains(artist)) {
+            throw new AccessDenyException("You are not one of the artists for this song");
+        }
+        return song;
+    }
+
     private List<SearchArtistResponse> artistsToArtistResponses(List<Artist> artists) {
         return artists.stream()
                 .map(artistMapper::toSearchArtistResponse)
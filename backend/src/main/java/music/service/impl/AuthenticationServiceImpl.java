@@ -1,10 +1,12 @@
 package music.service.impl;
 
+import music.constant.CatalogType;
 import music.constant.RoleName;
 import music.dto.request.RegisterRequest;
 import music.dto.request.RegisterRequestForArtist;
 import music.dto.request.SignInRequest;
 import music.dto.response.TokenResponse;
+import music.event.CatalogChangedEvent;
 import music.exception.DataInUseException;
 import music.exception.InvalidDataException;
 import music.exception.ResourceNotFoundException;
@@ -15,23 +17,30 @@ import music.model.User;
 import music.repository.ArtistRepository;
 import music.repository.RoleRepository;
 import music.repository.UserRepository;
+import music.security.TokenRevocationStore;
+import music.security.UserPrincipal;
 import music.service.AuthenticationService;
 import music.utils.JwtUtil;
 import music.utils.TokenType;
+import music.utils.VerifiedToken;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -46,19 +55,22 @@ public class AuthenticationServiceImpl implements AuthenticationService {
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
     private final ArtistRepository artistRepository;
+    private final UserDetailsService userDetailsService;
+    private final TokenRevocationStore tokenRevocationStore;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public TokenResponse authenticate(SignInRequest request, HttpServletResponse response) {
 
-        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(request.getUsername(),
-                request.getPassword()));
+        Authentication authentication = authenticationManager.authenticate(
+                new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
 
-        var user = userRepository.findByUsernameWithRoles(request.getUsername())
-                .orElseThrow(() ->
-                        new UsernameNotFoundException("User not found with username: " + request.getUsername()));
+        // Same principal the provider just loaded (and cached), no need to query the user again
+        UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
 
-        String accessToken = jwtUtil.generateAccessToken(user);
-        String refreshToken = jwtUtil.generateRefreshToken(user);
+        String familyId = jwtUtil.generateFamilyId();
+        String accessToken = jwtUtil.generateAccessToken(user, familyId);
+        String refreshToken = jwtUtil.generateRefreshToken(user, familyId);
 
         Cookie accessTokenCookie = new Cookie("accessToken", accessToken);
         accessTokenCookie.setSecure(true);
@@ -80,7 +92,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         return TokenResponse.builder()
                 .accessToken(accessToken)
                 .refreshToken(refreshToken)
-                .userId(user.getId())
+                .userId(user.id())
                 .build();
     }
 
@@ -95,7 +107,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
             throw new DataInUseException("Username is already in use");
         }
 
-        Role userRole = roleRepository.findByNameWithUsers(RoleName.USER)
+        Role userRole = roleRepository.findByName(RoleName.USER)
                 .orElseThrow(() -> new ResourceNotFoundException("Role 'USER' not found"));
 
         Set<Role> roles = new HashSet<>();
@@ -108,12 +120,12 @@ public class AuthenticationServiceImpl implements AuthenticationService {
                 .roles(roles)
                 .build();
 
-        roles.forEach(role -> role.getUsers().add(user));
-
         userRepository.save(user);
+        roleRepository.addUserToRoles(user.getId(), List.of(userRole.getId()));
 
-        String accessToken = jwtUtil.generateAccessToken(user);
-        String refreshToken = jwtUtil.generateRefreshToken(user);
+        String familyId = jwtUtil.generateFamilyId();
+        String accessToken = jwtUtil.generateAccessToken(user, familyId);
+        String refreshToken = jwtUtil.generateRefreshToken(user, familyId);
 
         Cookie accessTokenCookie = new Cookie("accessToken", accessToken);
         accessTokenCookie.setSecure(true);
@@ -162,7 +174,7 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         user.setActive(true);
         user.setPassword(passwordEncoder.encode(request.getPassword()));
 
-        roles.forEach(role -> role.getUsers().add(user));
+        user.setRoles(roles);
 
         Artist artist = Artist.builder()
                 .name(request.getName())
@@ -171,10 +183,13 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         artist.setUser(user);
 
         userRepository.save(user);
+        roleRepository.addUserToRoles(user.getId(), roles.stream().map(Role::getId).toList());
         artistRepository.save(artist);
+        eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogType.ARTIST, artist.getId(), artist.getName(), artist.getFollowers()));
 
-        String accessToken = jwtUtil.generateAccessToken(user);
-        String refreshToken = jwtUtil.generateRefreshToken(user);
+        String familyId = jwtUtil.generateFamilyId();
+        String accessToken = jwtUtil.generateAccessToken(user, familyId);
+        String refreshToken = jwtUtil.generateRefreshToken(user, familyId);
 
         Cookie accessTokenCookie = new Cookie("accessToken", accessToken);
         accessTokenCookie.setSecure(true);
@@ -201,30 +216,35 @@ public class AuthenticationServiceImpl implements AuthenticationService {
 
     @Override
     public TokenResponse refresh(HttpServletRequest request, HttpServletResponse response) {
-        String refreshToken = "";
-        Cookie[] cookies = request.getCookies();
-        if (cookies != null) {
-            refreshToken = Arrays.stream(cookies)
-                    .filter(cookie -> "refreshToken".equals(cookie.getName()))
-                    .map(Cookie::getValue)
-                    .findFirst()
-                    .orElse("");
-        }
+        String oldRefreshToken = getRefreshTokenCookie(request);
 
-        if (StringUtils.isBlank(refreshToken)) {
+        if (StringUtils.isBlank(oldRefreshToken)) {
             throw new InvalidDataException("Token can not be blank");
         }
 
-        final String username = jwtUtil.extractUsername(refreshToken, TokenType.REFRESH_TOKEN);
+        final VerifiedToken verifiedToken = jwtUtil.verify(oldRefreshToken, TokenType.REFRESH_TOKEN);
+
+        if (verifiedToken.id() == null || verifiedToken.familyId() == null
+                || tokenRevocationStore.isRevoked(verifiedToken.familyId())) {
+            throw new InvalidDataException("Invalid Token");
+        }
+
+        // Rotation: every refresh token is single use. Presenting one again means it leaked,
+        // so the whole family (all tokens issued from the same login) is revoked. Tokens rotated
+        // from the replayed one expire later than it, the family stays revoked until any of them could.
+        if (!tokenRevocationStore.revoke(verifiedToken.id(), verifiedToken.expiration())) {
+            tokenRevocationStore.revoke(verifiedToken.familyId(), jwtUtil.latestRefreshExpiration());
+            throw new InvalidDataException("Refresh token reuse detected");
+        }
 
-        User user = userRepository.findByUsernameWithRoles(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Username not found"));
+        UserPrincipal user = (UserPrincipal) userDetailsService.loadUserByUsername(verifiedToken.subject());
 
-        if (!jwtUtil.isValidToken(refreshToken, TokenType.REFRESH_TOKEN, user)) {
+        if (!jwtUtil.isValidToken(verifiedToken, user)) {
             throw new InvalidDataException("Invalid Token");
         }
 
-        String accessToken = jwtUtil.generateAccessToken(user);
+        String accessToken = jwtUtil.generateAccessToken(user, verifiedToken.familyId());
+        String refreshToken = jwtUtil.generateRefreshToken(user, verifiedToken.familyId());
 
         Cookie accessTokenCookie = new Cookie("accessToken", accessToken);
         accessTokenCookie.setSecure(true);
@@ -232,17 +252,37 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         accessTokenCookie.setAttribute("SameSite", "Strict");
         accessTokenCookie.setMaxAge(60 * 60);
 
+        Cookie refreshTokenCookie = new Cookie("refreshToken", refreshToken);
+        refreshTokenCookie.setHttpOnly(true);
+        refreshTokenCookie.setSecure(true);
+        refreshTokenCookie.setPath("/");
+        refreshTokenCookie.setAttribute("SameSite", "Strict");
+        refreshTokenCookie.setMaxAge(60 * 60 * 24 * 14);
+
         response.addCookie(accessTokenCookie);
+        response.addCookie(refreshTokenCookie);
 
         return TokenResponse.builder()
                 .accessToken(accessToken)
                 .refreshToken(refreshToken)
-                .userId(user.getId())
+                .userId(user.id())
                 .build();
     }
 
     @Override
     public void logout(HttpServletRequest request, HttpServletResponse response) {
+        String refreshToken = getRefreshTokenCookie(request);
+        if (StringUtils.isNotBlank(refreshToken)) {
+            try {
+                VerifiedToken verifiedToken = jwtUtil.verify(refreshToken, TokenType.REFRESH_TOKEN);
+                if (verifiedToken.familyId() != null) {
+                    tokenRevocationStore.revoke(verifiedToken.familyId(), jwtUtil.latestRefreshExpiration());
+                }
+            } catch (JwtException e) {
+                // Expired or invalid token, nothing left to revoke
+            }
+        }
+
         Cookie refreshCookie = new Cookie("refreshToken", "");
         refreshCookie.setMaxAge(0);
         refreshCookie.setPath("/");
@@ -258,6 +298,18 @@ public class AuthenticationServiceImpl implements AuthenticationService {
         response.addCookie(accessCookie);
     }
 
+    private String getRefreshTokenCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return "";
+        }
+        return Arrays.stream(cookies)
+                .filter(cookie -> "refreshToken".equals(cookie.getName()))
+                .map(Cookie::getValue)
+                .findFirst()
+                .orElse("");
+    }
+
     private boolean isValidUsername(String username) {
         String regex = "(?i).*admin.*";
         Pattern pattern = Pattern.compile(regex);
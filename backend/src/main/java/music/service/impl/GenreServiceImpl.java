@@ -1,18 +1,27 @@
 package music.service.impl;
 
+import music.constant.CatalogType;
+import music.dto.response.GenreFacetResponse;
 import music.dto.response.SearchGenreResponse;
 import music.model.Genre;
 import music.repository.GenreRepository;
+import music.search.CatalogNameIndex;
+import music.search.GenreSongIndex;
 import music.service.GenreService;
 import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class GenreServiceImpl implements GenreService {
     private final GenreRepository genreRepository;
+    private final GenreSongIndex genreSongIndex;
+    private final CatalogNameIndex catalogNameIndex;
 
     @Override
     public List<SearchGenreResponse> getAllGenres() {
@@ -26,5 +35,20 @@ public class GenreServiceImpl implements GenreService {
                 .toList();
     }
 
+    @Override
+    public List<GenreFacetResponse> getGenreFacets(String songName) {
+        // Counts over the songs matching the name when one is given
+        RoaringBitmap within = StringUtils.hasText(songName)
+                ? GenreSongIndex.toBitmap(catalogNameIndex.search(CatalogType.SONG, songName))
+                : null;
+        Map<Integer, Integer> counts = genreSongIndex.counts(within);
 
+        return genreRepository.findAll().stream()
+                .map(genre -> GenreFacetResponse.builder()
+                        .id(genre.getId())
+                        .name(genre.getName())
+                        .songCount(counts.getOrDefault(genre.getId(), 0))
+                        .build())
+                .toList();
+    }
 }
@@ -0,0 +1,82 @@
+package music.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import music.dto.response.ApiResponse;
+import music.dto.response.HomeFeedResponse;
+import music.service.ArtistService;
+import music.service.GenreService;
+import music.service.HomeService;
+import music.service.SongService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The home page sections in one response. They are rebuilt in the background and swapped in
+ * as an already serialized JSON body, so a request is a single memory read.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HomeServiceImpl implements HomeService {
+    private final SongService songService;
+    private final ArtistService artistService;
+    private final GenreService genreService;
+    private final ObjectMapper objectMapper;
+
+    private final AtomicReference<byte[]> snapshot = new AtomicReference<>();
+
+    @Override
+    public byte[] getHomeFeed() {
+        byte[] body = snapshot.get();
+        if (body == null) {
+            // Only until the first background build has finished
+            synchronized (this) {
+                body = snapshot.get();
+                if (body == null) {
+                    body = build();
+                    snapshot.set(body);
+                }
+            }
+        }
+        return body;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${homeFeed.refreshInterval}", initialDelayString = "${homeFeed.refreshInterval}")
+    public void refresh() {
+        try {
+            snapshot.set(build());
+        } catch (RuntimeException e) {
+            // Keep serving the previous snapshot
+            log.error("Failed to rebuild the home feed", e);
+        }
+    }
+
+    private byte[] build() {
+        HomeFeedResponse homeFeed = HomeFeedResponse.builder()
+                .featuredSongs(songService.getFeaturedSongs(false))
+                .madeForYouSongs(songService.getMadeForYouSongs())
+                .trendingSongs(songService.getTrendingSongs())
+                .topArtists(artistService.getTopArtists())
+                .genres(genreService.getAllGenres())
+                .generatedAt(new Date())
+                .build();
+
+        try {
+            return objectMapper.writeValueAsBytes(new ApiResponse<>(HttpStatus.OK.value(),
+                    "Get home feed success",
+                    homeFeed));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize the home feed", e);
+        }
+    }
+}
@@ -8,6 +8,7 @@ import music.model.Permission;
 import music.model.Role;
 import music.repository.PermissionRepository;
 import music.repository.RoleRepository;
+import music.security.UserDetailsCache;
 import music.service.RoleService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -21,6 +22,7 @@ import java.util.List;
 public class RoleServiceImpl implements RoleService {
     private final RoleRepository roleRepository;
     private final PermissionRepository permissionRepository;
+    private final UserDetailsCache userDetailsCache;
 
     @Override
     @Transactional
@@ -47,6 +49,7 @@ public class RoleServiceImpl implements RoleService {
     public int updateRole(int id, RoleRequest request) {
         Role role = getById(id);
         role.setName(request.getName());
+        userDetailsCache.evictAll();
         return id;
     }
 
@@ -54,6 +57,7 @@ public class RoleServiceImpl implements RoleService {
     @Transactional
     public int deleteRole(int id) {
         roleRepository.deleteById(id);
+        userDetailsCache.evictAll();
         return id;
     }
 
@@ -0,0 +1,39 @@
+package music.service.impl;
+
+import music.constant.CatalogType;
+import music.dto.response.SuggestResponse;
+import music.dto.response.SuggestionResponse;
+import music.exception.InvalidDataException;
+import music.search.CatalogSuggester;
+import music.service.SearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class SearchServiceImpl implements SearchService {
+    private final CatalogSuggester catalogSuggester;
+
+    @Override
+    public SuggestResponse suggest(String prefix, int limit) {
+        if (limit < 1)
+            throw new InvalidDataException("Limit must be greater than 0");
+
+        return SuggestResponse.builder()
+                .songs(suggest(CatalogType.SONG, prefix, limit))
+                .artists(suggest(CatalogType.ARTIST, prefix, limit))
+                .albums(suggest(CatalogType.ALBUM, prefix, limit))
+                .build();
+    }
+
+    private List<SuggestionResponse> suggest(CatalogType type, String prefix, int limit) {
+        return catalogSuggester.suggest(type, prefix, limit).stream()
+                .map(entry -> SuggestionResponse.builder()
+                        .id(entry.id())
+                        .name(entry.name())
+                        .build())
+                .toList();
+    }
+}
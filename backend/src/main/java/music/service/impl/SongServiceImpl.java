@@ -1,14 +1,21 @@
 package music.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import music.constant.CatalogType;
+import music.constant.CountMode;
 import music.constant.GenreName;
+import music.constant.SongStatus;
+import music.counter.SongLikeCounter;
 import music.dto.request.SongRequest;
 import music.dto.request.UpdateSongRequest;
+import music.dto.response.CursorPageResponse;
 import music.dto.response.PageResponse;
 import music.dto.response.SearchSongResponse;
 import music.dto.response.SongResponse;
-import music.exception.AudioUploadException;
-import music.exception.ImageUploadException;
+import music.dto.response.SongStatusResponse;
+import music.event.CatalogChangedEvent;
+import music.event.SongGenresChangedEvent;
+import music.exception.DataInUseException;
 import music.exception.InvalidDataException;
 import music.exception.ResourceNotFoundException;
 import music.mapper.SongMapper;
@@ -16,21 +23,39 @@ import music.model.Album;
 import music.model.Artist;
 import music.model.Genre;
 import music.model.Song;
+import music.model.SongListing;
 import music.repository.AlbumRepository;
 import music.repository.ArtistRepository;
 import music.repository.GenreRepository;
+import music.repository.SongListingRepository;
 import music.repository.SongRepository;
+import music.repository.UserRepository;
+import music.repository.search.KeysetSearchRepository;
 import music.repository.search.SongSearchRepository;
-import music.repository.specification.SearchOperator;
-import music.repository.specification.SongSpecificationBuilder;
-import music.service.CloudinaryService;
+import music.repository.specification.SearchFilterParser;
+import music.search.CatalogNameIndex;
+import music.search.FeaturedSongPool;
+import music.search.GenreSongIndex;
+import music.service.MediaIngestionService;
 import music.service.SongService;
+import music.utils.CursorUtil;
+import music.utils.ETagUtil;
 import music.utils.MultipartFileUtil;
+import music.utils.PageCountUtil;
 import music.utils.SortUtil;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
@@ -38,22 +63,41 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class SongServiceImpl implements SongService {
+    private static final Sort MOST_LIKED_FIRST = Sort.by(Sort.Direction.DESC, "likeCount");
+
     private final SongRepository songRepository;
+    private final SongListingRepository songListingRepository;
     private final SongMapper songMapper;
     private final GenreRepository genreRepository;
     private final ArtistRepository artistRepository;
     private final AlbumRepository albumRepository;
     private final SongSearchRepository songSearchRepository;
-    private final CloudinaryService cloudinaryService;
+    private final MediaIngestionService mediaIngestionService;
     private final SortUtil sortUtil;
     private final MultipartFileUtil multipartFileUtil;
+    private final KeysetSearchRepository keysetSearchRepository;
+    private final CursorUtil cursorUtil;
+    private final ETagUtil eTagUtil;
+    private final PageCountUtil pageCountUtil;
+    private final SearchFilterParser searchFilterParser;
+    private final FeaturedSongPool featuredSongPool;
+    private final CatalogNameIndex catalogNameIndex;
+    private final GenreSongIndex genreSongIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SongLikeCounter songLikeCounter;
+    private final UserRepository userRepository;
+
+    @Value("${featuredSongs.count}")
+    private int featuredSongsCount;
 
     @Override
     @Transactional
@@ -96,29 +140,27 @@ public class SongServiceImpl implements SongService {
         multipartFileUtil.isImageValid(imageFile);
         multipartFileUtil.isAudioValid(songFile);
 
-        String imageUrl = cloudinaryService.uploadImage(imageFile);
-        if (imageUrl == null) {
-            throw new ImageUploadException("Failed to upload image");
-        }
-
-        String songUrl = cloudinaryService.uploadAudio(songFile);
-        if (songUrl == null) {
-            throw new AudioUploadException("Failed to upload audio");
-        }
-
-        song.setImageUrl(imageUrl);
-        song.setSongUrl(songUrl);
-
-        genres.forEach(genre -> genre.getSongs().add(song));
         song.setArtists(artists);
         if (album != null)
             song.setAlbum(album);
+        // Listed and announced once its media is uploaded
+        song.setStatus(SongStatus.PROCESSING);
 
         songRepository.save(song);
+        songRepository.addGenres(song.getId(), genres.stream().map(Genre::getId).toList());
+        mediaIngestionService.ingestAfterCommit(song.getId(), imageFile, songFile);
 
         return song.getId();
     }
 
+    @Override
+    public String getSongETag(Long id) {
+        String fingerprint = songRepository.findFingerprintById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Song not found"));
+        // The response counts likes not flushed to the song row yet
+        return eTagUtil.generate(fingerprint + ":" + songLikeCounter.pending(id));
+    }
+
     @Override
     public SongResponse getSong(Long id) {
         Song song = songRepository.findByIdWithAllFields(id)
@@ -142,6 +184,7 @@ public class SongServiceImpl implements SongService {
                 .toList();
 
         SongResponse songResponse = songMapper.toSongResponse(song);
+        songResponse.setLikeCount(withPendingLikes(song.getId(), song.getLikeCount()));
         songResponse.setGenreIds(genreIds);
         songResponse.setGenreNames(genreNames);
         songResponse.setArtistIds(artistIds);
@@ -169,9 +212,6 @@ public class SongServiceImpl implements SongService {
 
         songMapper.updateSong(song, request);
 
-        // Delete song from genres
-        song.getGenres().forEach(genre -> genre.getSongs().remove(song));
-
         Set<String> genreNames = request.getGenreNames();
 
         Set<Genre> genres = genreRepository.findByNameIn(request.getGenreNames());
@@ -179,36 +219,80 @@ public class SongServiceImpl implements SongService {
             throw new ResourceNotFoundException("One or more genres were not found");
         }
 
-        if (imageFile != null) {
-            multipartFileUtil.isImageValid(imageFile);
-            String imageUrl = cloudinaryService.uploadImage(imageFile);
-            if (imageUrl == null) {
-                throw new ImageUploadException("Failed to upload image");
+        if (imageFile != null || songFile != null) {
+            if (song.getStatus() == SongStatus.PROCESSING) {
+                throw new DataInUseException("Media of this song is still being uploaded");
             }
-
-            song.setImageUrl(imageUrl);
+            if (imageFile != null)
+                multipartFileUtil.isImageValid(imageFile);
+            if (songFile != null)
+                multipartFileUtil.isAudioValid(songFile);
+            // The current media is served until the new one is uploaded
+            song.setStatus(SongStatus.PROCESSING);
+            mediaIngestionService.ingestAfterCommit(song.getId(), imageFile, songFile);
         }
 
-        if (songFile != null) {
-            multipartFileUtil.isAudioValid(songFile);
-            String songUrl = cloudinaryService.uploadAudio(songFile);
-            if (songUrl == null) {
-                throw new AudioUploadException("Failed to upload audio");
-            }
-
-            song.setSongUrl(songUrl);
+        List<Integer> genreIds = genres.stream()
+                .map(Genre::getId)
+                .toList();
+        songRepository.removeGenresNotIn(song.getId(), genreIds);
+        songRepository.addGenres(song.getId(), genreIds);
+        // Not released yet: the listing row and events come with its first upload
+        if (song.getSongUrl() != null) {
+            songListingRepository.refreshBySongIds(List.of(song.getId()));
+            eventPublisher.publishEvent(CatalogChangedEvent.saved(CatalogType.SONG, song.getId(), song.getName(), song.getLikeCount()));
+            eventPublisher.publishEvent(SongGenresChangedEvent.of(song.getId(), genres));
         }
 
-        genres.forEach(genre -> genre.getSongs().add(song));
-
         return song.getId();
     }
 
     @Override
     @Transactional
     public long deleteSong(Long id) {
-        if (songRepository.existsById(id))
+        if (songRepository.existsById(id)) {
             songRepository.deleteById(id);
+            eventPublisher.publishEvent(CatalogChangedEvent.deleted(CatalogType.SONG, id));
+            mediaIngestionService.discardAfterCommit(id);
+        }
+        return id;
+    }
+
+    @Override
+    public SongStatusResponse getSongStatus(Long id) {
+        Song song = songRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Song not found"));
+        return SongStatusResponse.builder()
+                .id(song.getId())
+                .status(song.getStatus())
+                .failureReason(song.getFailureReason())
+                .build();
+    }
+
+    @Override
+    public long retrySongIngestion(Long id) {
+        if (!songRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Song not found");
+        }
+        mediaIngestionService.retry(id);
+        return id;
+    }
+
+    @Override
+    public long likeSong(Long id) {
+        if (!songRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Song not found");
+        }
+        songLikeCounter.like(getCurrentUserId(), id);
+        return id;
+    }
+
+    @Override
+    public long unlikeSong(Long id) {
+        if (!songRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Song not found");
+        }
+        songLikeCounter.unlike(getCurrentUserId(), id);
         return id;
     }
 
@@ -218,38 +302,50 @@ public class SongServiceImpl implements SongService {
 
         Pageable pageable = PageRequest.of(pageNo, pageSize, sort);
 
-        Page<Long> ids = songRepository.findAllIds(pageable);
+        Page<SongListing> listings = songListingRepository.findAll(pageable);
 
-        List<Song> songs = songRepository.findAllByIdsAndSort(ids.toList(), sort);
-
-        List<SearchSongResponse> searchSongResponses = songsToSearchSongResponses(songs);
+        List<SearchSongResponse> searchSongResponses = listingsToSearchSongResponses(listings.getContent());
 
         return PageResponse.builder()
                 .pageNo(pageNo)
                 .pageSize(pageSize)
-                .totalPages(ids.getTotalPages())
+                .totalPages(listings.getTotalPages())
                 .items(searchSongResponses)
                 .build();
     }
 
     @Override
-    public PageResponse<?> getSongsByName(int pageNo, int pageSize, String sortBy, String name) {
+    public CursorPageResponse<?> getAllSongsByCursor(String cursor, int pageSize, String sortBy) {
+        return getSongsByCursor(cursor, pageSize, sortBy, null);
+    }
+
+    @Override
+    public PageResponse<?> getSongsByName(int pageNo, int pageSize, String sortBy, String name, CountMode countMode) {
         Sort sort = sortUtil.resolveSortBy(sortBy, "likeCount");
 
         Pageable pageable = PageRequest.of(pageNo, pageSize, sort);
 
-        Page<Long> ids = songRepository.findAllIdsByName(name, pageable);
+        // Matching ids come from the in-memory name index, the database only sorts and pages them
+        List<Long> matchingIds = catalogNameIndex.searchCandidates(CatalogType.SONG, name).orElse(null);
+        if (matchingIds == null) {
+            // Too broad a match for an id list
+            Slice<SongListing> listings = songListingRepository.findAllByName(name, pageable);
+            return pageCountUtil.toPageResponse(listings.map(SongListing::getId),
+                    listingsToSearchSongResponses(listings.getContent()), countMode,
+                    "song:name:" + pageCountUtil.normalize(name),
+                    () -> songListingRepository.countByName(name));
+        }
+        if (matchingIds.isEmpty()) {
+            return pageCountUtil.toPageResponse(new SliceImpl<>(List.of(), pageable, false), List.of(),
+                    CountMode.EXACT, null, () -> 0);
+        }
 
-        List<Song> songs = songRepository.findAllByIdsAndSort(ids.toList(), sort);
+        Slice<SongListing> listings = songListingRepository.findAllByIdIn(matchingIds, pageable);
 
-        List<SearchSongResponse> searchSongResponses = songsToSearchSongResponses(songs);
+        List<SearchSongResponse> searchSongResponses = listingsToSearchSongResponses(listings.getContent());
 
-        return PageResponse.builder()
-                .pageNo(pageNo)
-                .pageSize(pageSize)
-                .totalPages(ids.getTotalPages())
-                .items(searchSongResponses)
-                .build();
+        return pageCountUtil.toPageResponse(listings.map(SongListing::getId), searchSongResponses,
+                CountMode.EXACT, null, matchingIds::size);
     }
 
     @Override
@@ -258,94 +354,170 @@ public class SongServiceImpl implements SongService {
 
         Pageable pageable = PageRequest.of(pageNo, pageSize, sort);
 
-        Page<Long> ids = songRepository.findAllIdsByGenre(genreId, pageable);
+        Slice<Long> ids = songRepository.findAllIdsByGenre(genreId, pageable);
 
-        List<Song> songs = songRepository.findAllByIdsAndSort(ids.getContent(), sort);
+        List<SongListing> listings = songListingRepository.findAllByIdIn(ids.getContent(), sort);
 
-        List<SearchSongResponse> searchSongResponses = songsToSearchSongResponses(songs);
+        List<SearchSongResponse> searchSongResponses = listingsToSearchSongResponses(listings);
 
-        return PageResponse.builder()
-                .pageNo(pageNo)
-                .pageSize(pageSize)
-                .totalPages(ids.getTotalPages())
-                .items(searchSongResponses)
-                .build();
+        // The total comes from the genre bitmap instead of a COUNT over song_genres
+        return pageCountUtil.toPageResponse(ids, searchSongResponses, CountMode.EXACT, null,
+                () -> genreSongIndex.songIds(List.of(genreId), false).getLongCardinality());
     }
 
     @Override
-    public PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search) {
-
-        SongSpecificationBuilder builder = new SongSpecificationBuilder();
-
-        if (StringUtils.hasLength(search)) {
-            Pattern pattern = Pattern.compile("([,']?)(\\w+)(!:|!~|!=|>=|<=|[:~=><])(\\w+)");
-            Matcher matcher = pattern.matcher(search);
-
-            while (matcher.find()) {
-                String andOrLogic = matcher.group(1);
-                String key = matcher.group(2);
-                String operator = matcher.group(3);
-                String value = matcher.group(4);
-
-                if (andOrLogic != null && (andOrLogic.equals(SearchOperator.AND_OPERATOR) ||
-                        andOrLogic.equals(SearchOperator.OR_OPERATOR))) {
-                    builder.with(andOrLogic, key, operator, value, null, null);
-                } else {
-                    builder.with(key, operator, value, null, null);
-                }
-            }
+    public PageResponse<?> getSongsByGenres(int pageNo,
+                                            int pageSize,
+                                            String sortBy,
+                                            List<Integer> genreIds,
+                                            boolean matchAll,
+                                            String name) {
+        if (genreIds == null || genreIds.isEmpty()) {
+            throw new InvalidDataException("Genres must not be empty");
         }
 
         Sort sort = sortUtil.resolveSortBy(sortBy, "likeCount");
 
         Pageable pageable = PageRequest.of(pageNo, pageSize, sort);
 
-        Page<Long> ids = songSearchRepository.findIdsBySpecification(builder.build(), pageable);
+        RoaringBitmap matching = genreSongIndex.songIds(genreIds, matchAll);
+        if (StringUtils.hasText(name)) {
+            matching.and(GenreSongIndex.toBitmap(catalogNameIndex.search(CatalogType.SONG, name)));
+        }
+        if (matching.isEmpty()) {
+            return pageCountUtil.toPageResponse(new SliceImpl<>(List.of(), pageable, false), List.of(),
+                    CountMode.EXACT, null, () -> 0);
+        }
 
-        List<Song> songs = songRepository.findAllByIdsAndSort(ids.getContent(), sort);
+        // The page is picked from the bitmap, only its songs are bound into the query
+        Sort.Order order = sort.iterator().next();
+        List<Long> pageIds = switch (order.getProperty()) {
+            case "id" -> GenreSongIndex.pageById(matching, order.isAscending(), pageable.getOffset(), pageSize);
+            case "likeCount" -> genreSongIndex.pageByLikes(matching, order.isAscending(), pageable.getOffset(), pageSize);
+            default -> throw new InvalidDataException("Songs by genres can only be sorted by id or likeCount");
+        };
+        Slice<Long> ids = new SliceImpl<>(pageIds, pageable,
+                pageable.getOffset() + pageSize < matching.getLongCardinality());
+
+        Map<Long, SongListing> listings = songListingRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(SongListing::getId, Function.identity()));
+        List<SearchSongResponse> searchSongResponses = listingsToSearchSongResponses(pageIds.stream()
+                .map(listings::get)
+                .filter(Objects::nonNull)
+                .toList());
+
+        return pageCountUtil.toPageResponse(ids, searchSongResponses, CountMode.EXACT, null,
+                matching::getLongCardinality);
+    }
 
-        List<SearchSongResponse> searchSongResponses = songsToSearchSongResponses(songs);
+    @Override
+    public CursorPageResponse<?> getSongsByGenreByCursor(String cursor, int pageSize, String sortBy, Integer genreId) {
+        return getSongsByCursor(cursor, pageSize, sortBy,
+                (root, query, builder) -> builder.equal(root.join("genres").get("id"), genreId));
+    }
 
-        return PageResponse.builder()
-                .pageNo(pageNo)
-                .pageSize(pageSize)
-                .totalPages(ids.getTotalPages())
-                .items(searchSongResponses)
-                .build();
+    @Override
+    public PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search, CountMode countMode) {
+
+        Sort sort = sortUtil.resolveSortBy(sortBy, "likeCount");
+
+        Pageable pageable = PageRequest.of(pageNo, pageSize, sort);
+
+        Specification<Song> specification = searchFilterParser.compile(Song.class, search);
+
+        Slice<Long> ids = songSearchRepository.findIdSliceBySpecification(specification, pageable);
+
+        List<SongListing> listings = songListingRepository.findAllByIdIn(ids.getContent(), sort);
+
+        List<SearchSongResponse> searchSongResponses = listingsToSearchSongResponses(listings);
+
+        return pageCountUtil.toPageResponse(ids, searchSongResponses, countMode,
+                "song:search:" + pageCountUtil.normalize(search),
+                () -> songSearchRepository.countBySpecification(specification));
     }
 
     @Override
-    public List<?> getFeaturedSongs() {
-        List<Long> songIds = songRepository.find6RandomSongIds();
-        return songsToSearchSongResponses(songRepository.findSongsWithArtistsByIds(songIds));
+    public List<?> getFeaturedSongs(boolean weighted) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        String username = authentication == null || authentication instanceof AnonymousAuthenticationToken
+                ? null
+                : authentication.getName();
+
+        List<Long> songIds = featuredSongPool.sample(featuredSongsCount, weighted, username);
+        if (songIds.isEmpty()) {
+            return List.of();
+        }
+        return listingsToSearchSongResponses(songListingRepository.findAllByIdIn(songIds, MOST_LIKED_FIRST));
     }
 
     @Override
     public List<?> getMadeForYouSongs() {
         List<Long> songIds = List.of(12L, 24L, 25L, 29L, 32L, 23L);
-        return songsToSearchSongResponses(songRepository.findSongsWithArtistsByIds(songIds));
+        return listingsToSearchSongResponses(songListingRepository.findAllByIdIn(songIds, MOST_LIKED_FIRST));
     }
 
     @Override
     public List<?> getTrendingSongs() {
         List<Long> songIds = songRepository.find6MostLikedSongIds();
-        return songsToSearchSongResponses(songRepository.findSongsWithArtistsByIds(songIds));
+        return listingsToSearchSongResponses(songListingRepository.findAllByIdIn(songIds, MOST_LIKED_FIRST));
+    }
+
+    private CursorPageResponse<?> getSongsByCursor(String cursor,
+                                                   int pageSize,
+                                                   String sortBy,
+                                                   Specification<Song> specification) {
+        Sort.Order order = sortUtil.resolveSortBy(sortBy, "likeCount").iterator().next();
+
+        List<CursorUtil.Position> positions = keysetSearchRepository.findPositions(Song.class,
+                specification,
+                order,
+                cursorUtil.decode(cursor, order),
+                pageSize + 1);
+
+        List<Long> ids = positions.stream()
+                .limit(pageSize)
+                .map(CursorUtil.Position::id)
+                .toList();
+
+        Sort sort = Sort.by(order, new Sort.Order(order.getDirection(), "id"));
+        List<SongListing> listings = songListingRepository.findAllByIdIn(ids, sort);
+
+        return CursorPageResponse.builder()
+                .pageSize(pageSize)
+                .nextCursor(cursorUtil.nextCursor(order, positions, pageSize))
+                .items(listingsToSearchSongResponses(listings))
+                .build();
+    }
+
+    private Long getCurrentUserId() {
+        String username = SecurityContextHolder.getContext().getAuthentication().getName();
+        return userRepository.findIdByUsername(username)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found"));
+    }
+
+    // Likes not written to the song table yet are counted too
+    private Long withPendingLikes(Long songId, long likeCount) {
+        return likeCount + songLikeCounter.pending(songId);
     }
 
-    // List<Song> -> List<SearchSongResponse>
-    private List<SearchSongResponse> songsToSearchSongResponses(List<Song> songs) {
-        return songs.stream()
-                .map(song -> {
-                    List<Long> artistIds = song.getArtists().stream()
-                            .map(Artist::getId)
+    // List<SongListing> -> List<SearchSongResponse>
+    private List<SearchSongResponse> listingsToSearchSongResponses(List<SongListing> listings) {
+        return listings.stream()
+                .map(listing -> {
+                    List<SongListing.ListedArtist> artists = listing.getArtists() != null
+                            ? listing.getArtists()
+                            : List.of();
+                    List<Long> artistIds = artists.stream()
+                            .map(SongListing.ListedArtist::id)
                             .toList();
-                    List<String> artistNames = song.getArtists().stream()
-                            .map(Artist::getName)
+                    List<String> artistNames = artists.stream()
+                            .map(SongListing.ListedArtist::name)
                             .toList();
 
-                    SearchSongResponse searchSongResponse = songMapper.toSearchSongResponse(song);
+                    SearchSongResponse searchSongResponse = songMapper.toSearchSongResponse(listing);
                     searchSongResponse.setArtistIds(artistIds);
                     searchSongResponse.setArtistNames(artistNames);
+                    searchSongResponse.setLikeCount(withPendingLikes(listing.getId(), listing.getLikeCount()));
 
                     return searchSongResponse;
                 })
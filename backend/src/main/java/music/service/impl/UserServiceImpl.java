@@ -2,6 +2,7 @@ package music.service.impl;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import music.constant.CountMode;
 import music.constant.RoleName;
 import music.dto.request.RoleRequest;
 import music.dto.request.UpdateInfoRequest;
@@ -10,6 +11,7 @@ import music.dto.response.PageResponse;
 import music.dto.response.PageResponseCriteria;
 import music.dto.response.UserDetailsResponse;
 import music.dto.response.UserInfoResponse;
+import music.counter.SongLikeCounter;
 import music.exception.DataInUseException;
 import music.exception.InvalidDataException;
 import music.exception.ResourceNotFoundException;
@@ -19,25 +21,26 @@ import music.model.User;
 import music.repository.RoleRepository;
 import music.repository.UserRepository;
 import music.repository.search.UserSearchRepository;
-import music.repository.specification.SearchOperator;
-import music.repository.specification.UserSpecificationBuilder;
+import music.repository.specification.SearchFilterParser;
+import music.security.TokenVersionRegistry;
+import music.security.UserDetailsCache;
 import music.service.UserService;
+import music.utils.PageCountUtil;
 import music.utils.SortUtil;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.util.StringUtils;
 
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -50,6 +53,11 @@ public class UserServiceImpl implements UserService {
     private final RoleRepository roleRepository;
     private final UserSearchRepository userSearchRepository;
     private final SortUtil sortUtil;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final UserDetailsCache userDetailsCache;
+    private final PageCountUtil pageCountUtil;
+    private final SearchFilterParser searchFilterParser;
+    private final SongLikeCounter songLikeCounter;
 
     @Override
     @Transactional
@@ -70,9 +78,10 @@ public class UserServiceImpl implements UserService {
             throw new ResourceNotFoundException("One or more roles were not found");
         }
 
-        roles.forEach(role -> role.getUsers().add(user));
+        user.setRoles(roles);
 
         userRepository.save(user);
+        roleRepository.addUserToRoles(user.getId(), roles.stream().map(Role::getId).toList());
 
         return user.getId();
     }
@@ -100,10 +109,6 @@ public class UserServiceImpl implements UserService {
         userMapper.updateUser(user, request);
         user.setPassword(passwordEncoder.encode(request.getPassword()));
 
-        // Delete old roles from user
-        user.getRoles().forEach(role -> role.getUsers().remove(user));
-        user.getRoles().clear();
-
         Set<RoleName> roleNames = request.getRoles().stream()
                 .map(RoleRequest::getName)
                 .collect(Collectors.toSet());
@@ -113,14 +118,24 @@ public class UserServiceImpl implements UserService {
             throw new ResourceNotFoundException("One or more roles were not found");
         }
 
-        roles.forEach(role -> role.getUsers().add(user));
+        List<Integer> roleIds = roles.stream()
+                .map(Role::getId)
+                .toList();
+        roleRepository.removeUserFromRolesNotIn(user.getId(), roleIds);
+        roleRepository.addUserToRoles(user.getId(), roleIds);
+        user.setRoles(roles);
+
+        invalidateUser(user.getUsername());
 
         return user.getId();
     }
     @Override
     public long deleteUser(Long id) {
-        if (userRepository.existsById(id))
-            userRepository.deleteById(id);
+        userRepository.findUsernameById(id).ifPresent(username -> {
+            // The user's likes are taken off the like counts before the user row goes
+            songLikeCounter.unlikeAll(id, () -> userRepository.deleteById(id));
+            invalidateUser(username);
+        });
         return id;
     }
 
@@ -181,10 +196,10 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public long addRoleToUser(String username, String roleName) {
         User user = getUserByUsernameWithRoles(username);
-        Role role = getRoleByNameWithUsers(username);
+        Role role = getRoleByName(roleName);
 
-        if (!user.getRoles().contains(role)) {
-            role.getUsers().add(user);
+        if (roleRepository.addUserToRoles(user.getId(), List.of(role.getId())) > 0) {
+            invalidateUser(username);
         }
 
         return user.getId();
@@ -194,11 +209,10 @@ public class UserServiceImpl implements UserService {
     @Transactional
     public long deleteRoleFromUser(String username, String roleName) {
         User user = getUserByUsernameWithRoles(username);
-        Role role = getRoleByNameWithUsers(username);
+        Role role = getRoleByName(roleName);
 
-        if (user.getRoles().contains(role) && role.getUsers().contains(user)) {
-            role.getUsers().remove(user);
-            user.getRoles().remove(role);
+        if (roleRepository.removeUserFromRoles(user.getId(), List.of(role.getId())) > 0) {
+            invalidateUser(username);
         }
 
         return user.getId();
@@ -210,47 +224,31 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search) {
-
-        UserSpecificationBuilder builder = new UserSpecificationBuilder();
-
-        if (StringUtils.hasLength(search)) {
-            Pattern pattern = Pattern.compile("([,']?)(\\w+)(!:|!~|!=|>=|<=|[:~=><])(\\w+)");
-            Matcher matcher = pattern.matcher(search);
-
-            while (matcher.find()) {
-                String andOrLogic = matcher.group(1);
-                String key = matcher.group(2);
-                String operator = matcher.group(3);
-                String value = matcher.group(4);
-
-                if (andOrLogic != null && (andOrLogic.equals(SearchOperator.AND_OPERATOR) ||
-                                           andOrLogic.equals(SearchOperator.OR_OPERATOR))) {
-                    builder.with(andOrLogic, key, operator, value, null, null);
-                } else {
-                    builder.with(key, operator, value, null, null);
-                }
-            }
-        }
+    public PageResponse<?> sortAndSpecificationSearch(int pageNo, int pageSize, String sortBy, String search, CountMode countMode) {
 
         Sort sort = sortUtil.resolveSortBy(sortBy);
 
         Pageable pageable = PageRequest.of(pageNo, pageSize, sort);
 
-        Page<Long> ids = userSearchRepository.findIdsBySpecification(builder.build(), pageable);
+        Specification<User> specification = searchFilterParser.compile(User.class, search);
 
-        List<User> users = userRepository.findAllByIdsAndSort(ids.toList(), sort);
+        Slice<Long> ids = userSearchRepository.findIdSliceBySpecification(specification, pageable);
+
+        List<User> users = userRepository.findAllByIdsAndSort(ids.getContent(), sort);
 
         List<UserDetailsResponse> result = users.stream()
                 .map(userMapper::toUserDetailsResponse)
                 .toList();
 
-        return PageResponse.builder()
-                .pageNo(pageable.getPageNumber())
-                .pageSize(pageable.getPageSize())
-                .totalPages(ids.getTotalPages())
-                .items(result)
-                .build();
+        return pageCountUtil.toPageResponse(ids, result, countMode,
+                "user:search:" + pageCountUtil.normalize(search),
+                () -> userSearchRepository.countBySpecification(specification));
+    }
+
+    // Role, account or deletion changes must not wait for the cache TTL or the access token expiry
+    private void invalidateUser(String username) {
+        tokenVersionRegistry.revoke(username);
+        userDetailsCache.evict(username);
     }
 
     private User getUserByUsernameWithRoles(String username) {
@@ -258,8 +256,8 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new ResourceNotFoundException("Username not found"));
     }
 
-    private Role getRoleByNameWithUsers(String roleName) {
-        return roleRepository.findByNameWithUsers(RoleName.valueOf(roleName))
+    private Role getRoleByName(String roleName) {
+        return roleRepository.findByName(RoleName.valueOf(roleName))
                 .orElseThrow(() -> new ResourceNotFoundException("Role not found"));
     }
 }
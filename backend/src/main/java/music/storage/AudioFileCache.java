@@ -0,0 +1,213 @@
+package music.storage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Local copies of remote audio for streaming, bounded by {@code maxBytes} and evicted least recently
+ * used first. Files are named by the SHA-256 of their URL; stored media never changes under a URL,
+ * so a cached file is never stale.
+ *
+ * A miss downloads the whole file from its {@link MediaStorage} to a temp file, then renames it in.
+ * Concurrent misses on one URL share a single download. An evicted file is only unlinked: streams
+ * that already opened it keep reading it.
+ *
+ * Metrics: song.stream.cache (tag result=hit|miss), song.stream.cache.fetches (downloads from
+ * origin), song.stream.cache.evictions and song.stream.cache.bytes.
+ */
+@Component
+@Slf4j
+public class AudioFileCache {
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final MediaStorage mediaStorage;
+    private final Path dir;
+    private final long maxBytes;
+    private final Map<String, CompletableFuture<Path>> downloads = new ConcurrentHashMap<>();
+
+    // guarded by this, least recently used first
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter fetches;
+    private final Counter evictions;
+
+    public AudioFileCache(MediaStorage mediaStorage,
+                          @Value("${streaming.cache.dir}") String dir,
+                          @Value("${streaming.cache.maxBytes}") long maxBytes,
+                          MeterRegistry meterRegistry) {
+        this.mediaStorage = mediaStorage;
+        this.dir = Paths.get(dir).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.hits = Counter.builder("song.stream.cache")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("song.stream.cache")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.fetches = Counter.builder("song.stream.cache.fetches")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("song.stream.cache.evictions")
+                .register(meterRegistry);
+        Gauge.builder("song.stream.cache.bytes", this, AudioFileCache::cachedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    // Files cached before a restart are kept, oldest modified evicted first
+    @PostConstruct
+    synchronized void load() throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files;
+        try (Stream<Path> listed = Files.list(dir)) {
+            files = listed.filter(Files::isRegularFile).toList();
+        }
+        List<Path> cached = new ArrayList<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                // Download interrupted by the restart
+                Files.deleteIfExists(file);
+            } else {
+                cached.add(file);
+            }
+        }
+        cached.sort(Comparator.comparing(file -> {
+            try {
+                return Files.getLastModifiedTime(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+        for (Path file : cached) {
+            long size = Files.size(file);
+            sizes.put(file.getFileName().toString(), size);
+            totalBytes += size;
+        }
+        evict(null);
+        log.info("Loaded {} cached audio files, {} bytes", sizes.size(), totalBytes);
+    }
+
+    /**
+     * Returns the local copy of the media at the URL, downloading it on a miss.
+     */
+    public Path get(String url) throws IOException {
+        String key = key(url);
+        if (lookup(key)) {
+            hits.increment();
+            return dir.resolve(key);
+        }
+        misses.increment();
+
+        CompletableFuture<Path> download = new CompletableFuture<>();
+        CompletableFuture<Path> running = downloads.putIfAbsent(key, download);
+        if (running == null) {
+            try {
+                download.complete(download(url, key));
+            } catch (IOException | RuntimeException e) {
+                download.completeExceptionally(e);
+            } finally {
+                downloads.remove(key, download);
+            }
+            running = download;
+        }
+
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    synchronized long cachedBytes() {
+        return totalBytes;
+    }
+
+    private synchronized boolean lookup(String key) {
+        // get() moves the entry to the most recently used end
+        return sizes.get(key) != null;
+    }
+
+    private Path download(String url, String key) throws IOException {
+        Path file = dir.resolve(key);
+        // Another download of the same URL may have finished since the lookup
+        if (lookup(key)) {
+            return file;
+        }
+
+        fetches.increment();
+        Path temp = Files.createTempFile(dir, key + "-", TEMP_SUFFIX);
+        try {
+            try (InputStream input = mediaStorage.open(url)) {
+                Files.copy(input, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        long size = Files.size(file);
+        synchronized (this) {
+            sizes.put(key, size);
+            totalBytes += size;
+            evict(key);
+        }
+        return file;
+    }
+
+    // Drops least recently used files until the cache fits, never the one just added
+    private void evict(String keep) {
+        Iterator<Map.Entry<String, Long>> iterator = sizes.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (entry.getKey().equals(keep)) {
+                continue;
+            }
+            iterator.remove();
+            totalBytes -= entry.getValue();
+            evictions.increment();
+            try {
+                Files.deleteIfExists(dir.resolve(entry.getKey()));
+            } catch (IOException e) {
+                log.warn("Failed to delete cached audio file {}", entry.getKey(), e);
+            }
+        }
+    }
+
+    private static String key(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(url.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package music.storage;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import music.constant.MediaKind;
+import music.exception.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uploads stream from the multipart or staged temp file in chunks of {@code chunkSize} instead of
+ * reading the whole file into a byte[]. Each upload holds its chunk buffers until it completes, so uploads
+ * share {@code maxConcurrent} permits: heap used by uploads stays under about
+ * maxConcurrent * 2 * chunkSize whatever the file sizes and the number of uploading clients.
+ * An upload that cannot get a permit within {@code acquireTimeout} fails with a
+ * {@link ServiceBusyException} (503).
+ */
+@Component
+@ConditionalOnProperty(name = "mediaStorage.type", havingValue = "cloudinary", matchIfMissing = true)
+public class CloudinaryMediaStorage implements MediaStorage {
+    private final Cloudinary cloudinary;
+    private final int chunkSize;
+    private final long acquireTimeout;
+    private final Semaphore uploadPermits;
+    private final Duration downloadTimeout;
+    private final HttpClient httpClient;
+
+    public CloudinaryMediaStorage(Cloudinary cloudinary,
+                                  @Value("${cloudinary.upload.chunkSize}") int chunkSize,
+                                  @Value("${cloudinary.upload.maxConcurrent}") int maxConcurrent,
+                                  @Value("${cloudinary.upload.acquireTimeout}") long acquireTimeout,
+                                  @Value("${cloudinary.download.timeout}") long downloadTimeout) {
+        this.cloudinary = cloudinary;
+        this.chunkSize = chunkSize;
+        this.acquireTimeout = acquireTimeout;
+        this.uploadPermits = new Semaphore(maxConcurrent, true);
+        this.downloadTimeout = Duration.ofMillis(downloadTimeout);
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(this.downloadTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    @Override
+    public String store(InputStreamSource content, MediaKind kind) throws IOException {
+        // Cloudinary stores audio as video resources
+        Map options = ObjectUtils.asMap("resource_type", kind == MediaKind.AUDIO ? "video" : "image");
+        acquirePermit();
+        try (InputStream input = content.getInputStream()) {
+            Map uploadResult = cloudinary.uploader().uploadLarge(input, options, chunkSize);
+            return (String) uploadResult.get("url");
+        } finally {
+            uploadPermits.release();
+        }
+    }
+
+    @Override
+    public InputStream open(String url) throws IOException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(downloadTimeout)
+                .GET()
+                .build();
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != 200) {
+                response.body().close();
+                throw new IOException("Failed to download " + url + ": HTTP " + response.statusCode());
+            }
+            return response.body();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading " + url);
+        }
+    }
+
+    private void acquirePermit() {
+        try {
+            if (!uploadPermits.tryAcquire(acquireTimeout, TimeUnit.MILLISECONDS)) {
+                throw new ServiceBusyException("Too many uploads in progress, please try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting to upload", e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package music.storage;
+
+import music.constant.MediaKind;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Content-addressed media on the local filesystem: {@code root/<kind>/<xx>/<sha256>.<ext>}, where xx
+ * is the first two hex digits of the hash so no directory grows too large. The same file uploaded twice
+ * is stored once, and a stored file never changes, so it can be cached forever (see LocalMediaConfig).
+ *
+ * The extension is taken from the file signature in the first bytes, not from the upload's name:
+ * staged uploads have lost it, and /media/** and MediaTypeFactory derive the content type from it.
+ * Content of no known format is stored without one.
+ *
+ * Content is copied through a {@code bufferSize} buffer from the source channel to a temp file in the
+ * kind's directory, hashed on the way, then renamed to its final name, so readers never see a
+ * partially written file.
+ */
+@Component
+@ConditionalOnProperty(name = "mediaStorage.type", havingValue = "local")
+public class LocalMediaStorage implements MediaStorage {
+    // Enough for every signature checked by extension()
+    private static final int SIGNATURE_LENGTH = 12;
+
+    private final Path root;
+    private final String baseUrl;
+    private final int bufferSize;
+
+    public LocalMediaStorage(@Value("${mediaStorage.local.root}") String root,
+                             @Value("${mediaStorage.local.baseUrl}") String baseUrl,
+                             @Value("${mediaStorage.local.bufferSize}") int bufferSize) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public String store(InputStreamSource content, MediaKind kind) throws IOException {
+        String kindDir = kind.name().toLowerCase(Locale.ROOT);
+        Path dir = Files.createDirectories(root.resolve(kindDir));
+        Path temp = Files.createTempFile(dir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            byte[] signature = new byte[SIGNATURE_LENGTH];
+            int signatureLength = 0;
+            // A file source (staged upload) is read through its FileChannel
+            try (ReadableByteChannel in = content instanceof Resource resource
+                    ? resource.readableChannel()
+                    : Channels.newChannel(content.getInputStream());
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+                while (in.read(buffer) >= 0) {
+                    buffer.flip();
+                    if (signatureLength < signature.length) {
+                        int length = Math.min(signature.length - signatureLength, buffer.remaining());
+                        buffer.duplicate().get(signature, signatureLength, length);
+                        signatureLength += length;
+                    }
+                    digest.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                out.force(false);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String shard = hash.substring(0, 2);
+            String name = hash + extension(kind, Arrays.copyOf(signature, signatureLength));
+            Path target = Files.createDirectories(dir.resolve(shard)).resolve(name);
+            if (!Files.exists(target)) {
+                // Same content under the same name, a concurrent rename of an identical upload is harmless
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return baseUrl + "/" + kindDir + "/" + shard + "/" + name;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    @Override
+    public InputStream open(String url) throws IOException {
+        Path file = localFile(url)
+                .orElseThrow(() -> new FileNotFoundException("No local media for " + url));
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public Optional<Path> localFile(String url) {
+        String prefix = baseUrl + "/";
+        if (url == null || !url.startsWith(prefix)) {
+            return Optional.empty();
+        }
+        Path file = root.resolve(url.substring(prefix.length())).normalize();
+        // Only files under the root, whatever the URL holds
+        if (!file.startsWith(root) || !Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(file);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    // File extension with its dot for the format starting with the signature, empty if unknown
+    static String extension(MediaKind kind, byte[] signature) {
+        if (startsWith(signature, 0, 0xFF, 0xD8, 0xFF)) {
+            return ".jpg";
+        }
+        if (startsWith(signature, 0, 0x89, 'P', 'N', 'G')) {
+            return ".png";
+        }
+        if (startsWith(signature, 0, 'G', 'I', 'F', '8')) {
+            return ".gif";
+        }
+        if (startsWith(signature, 0, 'R', 'I', 'F', 'F') && startsWith(signature, 8, 'W', 'E', 'B', 'P')) {
+            return ".webp";
+        }
+        if (startsWith(signature, 0, 'R', 'I', 'F', 'F') && startsWith(signature, 8, 'W', 'A', 'V', 'E')) {
+            return ".wav";
+        }
+        if (startsWith(signature, 0, 'I', 'D', '3')) {
+            return ".mp3";
+        }
+        if (signature.length >= 2 && (signature[0] & 0xFF) == 0xFF && (signature[1] & 0xE0) == 0xE0) {
+            // Frame sync: layer bits 00 are AAC in ADTS, any other layer MPEG audio
+            return (signature[1] & 0x06) == 0 ? ".aac" : ".mp3";
+        }
+        if (startsWith(signature, 0, 'O', 'g', 'g', 'S')) {
+            return ".ogg";
+        }
+        if (startsWith(signature, 0, 'f', 'L', 'a', 'C')) {
+            return ".flac";
+        }
+        if (kind == MediaKind.AUDIO && startsWith(signature, 4, 'f', 't', 'y', 'p')) {
+            return ".m4a";
+        }
+        return "";
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, int... expected) {
+        if (bytes.length < offset + expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if ((bytes[offset + i] & 0xFF) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package music.storage;
+
+import music.constant.MediaKind;
+import org.springframework.core.io.InputStreamSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Where uploaded images and audio are kept. The backend is chosen by {@code mediaStorage.type}:
+ * cloudinary (default) or local.
+ */
+public interface MediaStorage {
+    /**
+     * Stores the content, reading it as a stream.
+     *
+     * @return the public URL of the stored media, null if the backend did not give one
+     */
+    String store(InputStreamSource content, MediaKind kind) throws IOException;
+
+    /**
+     * Opens media by the URL {@link #store} returned.
+     */
+    InputStream open(String url) throws IOException;
+
+    /**
+     * The file holding the media, for backends keeping it on the local filesystem,
+     * so it can be served from there without a copy.
+     */
+    default Optional<Path> localFile(String url) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,96 @@
+package music.utils;
+
+import music.exception.InvalidDataException;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Opaque continuation tokens for keyset pagination.
+ * A token holds the sort order it was issued for plus the sort key and id of the last row
+ * of the previous page: base64url("property:direction|id|type|value").
+ */
+@Component
+public class CursorUtil {
+    public record Position(Object sortKey, Long id) {
+    }
+
+    /**
+     * Expects the positions of a page fetched with {@code pageSize + 1} rows.
+     *
+     * @return the cursor after the last row of the page, or null if there is no next page
+     */
+    public String nextCursor(Sort.Order order, List<Position> positions, int pageSize) {
+        if (positions.size() <= pageSize) {
+            return null;
+        }
+        return encode(order, positions.get(pageSize - 1));
+    }
+
+    public String encode(Sort.Order order, Position position) {
+        Object sortKey = position.sortKey();
+        String typedKey;
+        if (sortKey == null) {
+            typedKey = "N|";
+        } else if (sortKey instanceof Long value) {
+            typedKey = "L|" + value;
+        } else if (sortKey instanceof Integer value) {
+            typedKey = "I|" + value;
+        } else if (sortKey instanceof Date value) {
+            typedKey = "D|" + value.getTime();
+        } else if (sortKey instanceof String value) {
+            typedKey = "S|" + value;
+        } else {
+            throw new InvalidDataException("Sorting by " + order.getProperty() + " is not supported with cursor");
+        }
+
+        String raw = sortSignature(order) + "|" + position.id() + "|" + typedKey;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the position to continue after, or null for the first page (blank cursor)
+     */
+    public Position decode(String cursor, Sort.Order order) {
+        if (!StringUtils.hasText(cursor)) {
+            return null;
+        }
+
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 4);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDataException("Invalid cursor");
+        }
+        if (parts.length != 4) {
+            throw new InvalidDataException("Invalid cursor");
+        }
+        if (!parts[0].equals(sortSignature(order))) {
+            throw new InvalidDataException("Cursor does not match sortBy");
+        }
+
+        try {
+            Long id = Long.valueOf(parts[1]);
+            Object sortKey = switch (parts[2]) {
+                case "N" -> null;
+                case "L" -> Long.valueOf(parts[3]);
+                case "I" -> Integer.valueOf(parts[3]);
+                case "D" -> new Date(Long.parseLong(parts[3]));
+                case "S" -> parts[3];
+                default -> throw new InvalidDataException("Invalid cursor");
+            };
+            return new Position(sortKey, id);
+        } catch (NumberFormatException e) {
+            throw new InvalidDataException("Invalid cursor");
+        }
+    }
+
+    private String sortSignature(Sort.Order order) {
+        return order.getProperty() + ":" + (order.isAscending() ? "asc" : "desc");
+    }
+}
@@ -0,0 +1,27 @@
+package music.utils;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Strong entity tags for detail responses, hashed from a fingerprint of the rows the response
+ * is built from (versions, update times, counters), so a conditional GET can be answered
+ * without building the response.
+ */
+@Component
+public class ETagUtil {
+    public String generate(String fingerprint) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(fingerprint.getBytes(StandardCharsets.UTF_8));
+            // 128 bits are plenty to tell versions of one resource apart
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
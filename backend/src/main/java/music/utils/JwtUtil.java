@@ -1,10 +1,14 @@
 package music.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import music.security.TokenVersionRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -12,10 +16,11 @@ import org.springframework.stereotype.Component;
 
 import java.security.Key;
 import java.util.*;
-import java.util.function.Function;
 
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
+    private final TokenVersionRegistry tokenVersionRegistry;
 
     @Value("${jwt.accessExpiryTime}")
     private int accessExpiryTime;
@@ -29,8 +34,31 @@ public class JwtUtil {
     @Value("${jwt.refreshKey}")
     private String refreshKey;
 
-    public String generateAccessToken(UserDetails userDetails) {
-        return generateAccessToken(Map.of("scope", buildScope(userDetails.getAuthorities())), userDetails);
+    // Keys are decoded and parsers built once; JwtParser instances are immutable and thread-safe
+    private final Map<TokenType, Key> keys = new EnumMap<>(TokenType.class);
+    private final Map<TokenType, JwtParser> parsers = new EnumMap<>(TokenType.class);
+
+    @PostConstruct
+    void init() {
+        keys.put(TokenType.ACCESS_TOKEN, Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey)));
+        keys.put(TokenType.REFRESH_TOKEN, Keys.hmacShaKeyFor(Decoders.BASE64.decode(refreshKey)));
+
+        keys.forEach((tokenType, key) -> parsers.put(tokenType, Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()));
+    }
+
+    /**
+     * Id shared by the access and refresh tokens of one login, kept across refresh token rotation.
+     */
+    public String generateFamilyId() {
+        return UUID.randomUUID().toString();
+    }
+
+    public String generateAccessToken(UserDetails userDetails, String familyId) {
+        return generateAccessToken(Map.of("scope", buildScope(userDetails.getAuthorities()),
+                "ver", tokenVersionRegistry.currentVersion(userDetails.getUsername()),
+                "fid", familyId), userDetails);
     }
 
     public String generateAccessToken(Map<String, Object> claims, UserDetails userDetails) {
@@ -44,13 +72,14 @@ public class JwtUtil {
                 .compact();
     }
 
-    public String generateRefreshToken(UserDetails userDetails) {
-        return generateRefreshToken(new HashMap<>(), userDetails);
+    public String generateRefreshToken(UserDetails userDetails, String familyId) {
+        return generateRefreshToken(Map.of("fid", familyId), userDetails);
     }
 
     public String generateRefreshToken(Map<String, Object> claims, UserDetails userDetails) {
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(userDetails.getUsername())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setIssuer("https://github.com/lily-iker")
@@ -59,40 +88,53 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * Latest expiry a refresh token issued from now on can have.
+     */
+    public Date latestRefreshExpiration() {
+        return new Date(System.currentTimeMillis() + refreshExpiryTime);
+    }
+
+    /**
+     * Parses and verifies the token exactly once. Signature or expiry failures are
+     * thrown as the usual jjwt exceptions (e.g. ExpiredJwtException, SignatureException).
+     */
+    public VerifiedToken verify(String token, TokenType tokenType) {
+        Claims claims = parsers.get(tokenType)
+                .parseClaimsJws(token)
+                .getBody();
+
+        return new VerifiedToken(claims.getSubject(),
+                claims.get("scope", String.class),
+                claims.get("ver", Long.class),
+                claims.getId(),
+                claims.get("fid", String.class),
+                claims.getIssuedAt(),
+                claims.getExpiration());
+    }
+
+    public boolean isValidToken(VerifiedToken token, UserDetails userDetails) {
+        return token.subject().equals(userDetails.getUsername()) && !token.isExpired();
+    }
+
     public boolean isValidToken(String token, TokenType tokenType, UserDetails userDetails) {
-        String username = extractUsername(token, tokenType);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token, tokenType);
+        return isValidToken(verify(token, tokenType), userDetails);
     }
 
     public String extractUsername(String token, TokenType tokenType) {
-        return extractClaims(token, tokenType, Claims::getSubject);
+        return verify(token, tokenType).subject();
     }
 
     public Date extractExpired(String token, TokenType tokenType) {
-        return extractClaims(token, tokenType, Claims::getExpiration);
+        return verify(token, tokenType).expiration();
     }
 
     public boolean isTokenExpired(String token, TokenType tokenType) {
-        return extractExpired(token, tokenType).before(new Date());
+        return verify(token, tokenType).isExpired();
     }
 
     private Key getKey(TokenType tokenType) {
-        if (TokenType.ACCESS_TOKEN.equals(tokenType)){
-            return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
-        }
-        else{
-            return Keys.hmacShaKeyFor(Decoders.BASE64.decode(refreshKey));
-        }
-    }
-
-    private <T> T extractClaims(String token, TokenType tokenType, Function<Claims, T> claimsResolver) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getKey(tokenType))
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return claimsResolver.apply(claims);
+        return keys.get(tokenType);
     }
 
     private String buildScope(Collection <? extends GrantedAuthority> authorities) {
@@ -0,0 +1,72 @@
+package music.utils;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import music.constant.CountMode;
+import music.dto.response.PageResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+@Component
+public class PageCountUtil {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Cache<String, Long> totals;
+
+    public PageCountUtil(@Value("${pageCount.cacheMaximumSize}") long maximumSize,
+                         @Value("${pageCount.cacheExpireAfterWrite}") long expireAfterWrite,
+                         MeterRegistry meterRegistry) {
+        this.totals = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWrite))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, totals, "pageTotals");
+    }
+
+    /**
+     * Builds the page response for a slice fetched with page size + 1 rows.
+     *
+     * @param countKey normalized filter, identifies the total in the CACHED mode
+     * @param counter  runs the COUNT query, only called when the total is needed and unknown
+     */
+    public PageResponse<?> toPageResponse(Slice<Long> ids,
+                                          Object items,
+                                          CountMode countMode,
+                                          String countKey,
+                                          LongSupplier counter) {
+        long total = resolveTotal(ids, countMode, countKey, counter);
+
+        return PageResponse.builder()
+                .pageNo(ids.getNumber())
+                .pageSize(ids.getSize())
+                .totalPages(total < 0 ? -1 : (int) ((total + ids.getSize() - 1) / ids.getSize()))
+                .hasNext(ids.hasNext())
+                .items(items)
+                .build();
+    }
+
+    private long resolveTotal(Slice<Long> ids, CountMode countMode, String countKey, LongSupplier counter) {
+        // Last page reached with rows on it: the total is known without counting
+        if (!ids.hasNext() && (ids.hasContent() || ids.getNumber() == 0)) {
+            return ids.getPageable().getOffset() + ids.getNumberOfElements();
+        }
+
+        return switch (countMode) {
+            case EXACT -> counter.getAsLong();
+            case CACHED -> totals.get(countKey, key -> counter.getAsLong());
+            case NONE -> -1;
+        };
+    }
+
+    public String normalize(String filter) {
+        return filter == null ? "" : WHITESPACE.matcher(filter.strip().toLowerCase()).replaceAll(" ");
+    }
+}
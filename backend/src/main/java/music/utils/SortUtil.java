@@ -9,13 +9,14 @@ import java.util.regex.Pattern;
 
 @Component
 public class SortUtil {
+    private static final Pattern SORT_BY = Pattern.compile("^(\\w+)(:)(asc|desc)$");
+
     public Sort resolveSortBy(String sortBy) {
         // Default sort by ID in ascending order
         Sort sort = Sort.by(Sort.Direction.ASC, "id");
 
         if (StringUtils.hasLength(sortBy)) {
-            Pattern pattern = Pattern.compile("^(\\w+)(:)(asc|desc)$");
-            Matcher matcher = pattern.matcher(sortBy);
+            Matcher matcher = SORT_BY.matcher(sortBy);
             if (matcher.find()) {
                 String columnToSort = matcher.group(1);
                 String sortDirection = matcher.group(3);
@@ -35,8 +36,7 @@ public class SortUtil {
         Sort sort = Sort.by(Sort.Direction.DESC, defaultSortColumn);
 
         if (StringUtils.hasLength(sortBy)) {
-            Pattern pattern = Pattern.compile("^(\\w+)(:)(asc|desc)$");
-            Matcher matcher = pattern.matcher(sortBy);
+            Matcher matcher = SORT_BY.matcher(sortBy);
             if (matcher.find()) {
                 String columnToSort = matcher.group(1);
                 String sortDirection = matcher.group(3);
@@ -0,0 +1,28 @@
+package music.utils;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.util.Date;
+import java.util.List;
+
+public record VerifiedToken(String subject,
+                            String scope,
+                            Long version,
+                            String id,
+                            String familyId,
+                            Date issuedAt,
+                            Date expiration) {
+
+    public boolean isExpired() {
+        return expiration.before(new Date());
+    }
+
+    public List<GrantedAuthority> authorities() {
+        if (StringUtils.isBlank(scope)) {
+            return AuthorityUtils.NO_AUTHORITIES;
+        }
+        return AuthorityUtils.createAuthorityList(StringUtils.split(scope, ' '));
+    }
+}
@@ -0,0 +1,258 @@
+package music.counter;
+
+import music.event.SongLikesFlushedEvent;
+import music.repository.SongLikeDeltaRepository;
+import music.repository.SongLikeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SongLikeCounterTests {
+    private static final Long SONG_ID = 1L;
+
+    private SongLikeRepository songLikeRepository;
+    private JdbcTemplate jdbcTemplate;
+    private ApplicationEventPublisher eventPublisher;
+    private FakeDatabase database;
+    private SongLikeCounter songLikeCounter;
+
+    @BeforeEach
+    void setUp() {
+        songLikeRepository = mock(SongLikeRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        database = new FakeDatabase();
+        when(songLikeRepository.insertIfAbsent(anyLong(), anyLong())).thenReturn(1);
+        when(songLikeRepository.deleteByUserIdAndSongId(anyLong(), anyLong())).thenReturn(1);
+        doAnswer(invocation -> {
+            database.stage(invocation.getArgument(0), invocation.getArgument(1));
+            return new int[0];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        songLikeCounter = new SongLikeCounter(songLikeRepository, mock(SongLikeDeltaRepository.class),
+                jdbcTemplate, database, eventPublisher);
+    }
+
+    @Test
+    void keepsChangesPendingUntilFlushed() {
+        songLikeCounter.like(1L, SONG_ID);
+        songLikeCounter.like(2L, SONG_ID);
+        songLikeCounter.like(3L, SONG_ID);
+        songLikeCounter.unlike(1L, SONG_ID);
+
+        assertThat(songLikeCounter.pending(SONG_ID)).isEqualTo(2);
+        assertThat(database.likeCount(SONG_ID)).isZero();
+
+        songLikeCounter.flush();
+
+        assertThat(songLikeCounter.pending(SONG_ID)).isZero();
+        assertThat(database.likeCount(SONG_ID)).isEqualTo(2);
+        verify(eventPublisher).publishEvent(new SongLikesFlushedEvent(Map.of(SONG_ID, 2L)));
+    }
+
+    @Test
+    void countsNothingWhenTheLikeDidNotChange() {
+        when(songLikeRepository.insertIfAbsent(1L, SONG_ID)).thenReturn(0);
+
+        assertThat(songLikeCounter.like(1L, SONG_ID)).isFalse();
+        assertThat(songLikeCounter.pending(SONG_ID)).isZero();
+    }
+
+    @Test
+    void keepsAFailedEpochPendingForTheNextFlush() {
+        songLikeCounter.like(1L, SONG_ID);
+        database.failNextCommit();
+
+        songLikeCounter.flush();
+
+        assertThat(songLikeCounter.pending(SONG_ID)).isEqualTo(1);
+        assertThat(database.likeCount(SONG_ID)).isZero();
+
+        songLikeCounter.like(2L, SONG_ID);
+        songLikeCounter.flush();
+
+        assertThat(songLikeCounter.pending(SONG_ID)).isZero();
+        assertThat(database.likeCount(SONG_ID)).isEqualTo(2);
+    }
+
+    @Test
+    void unlikesEverySongOfADeletedUser() {
+        when(songLikeRepository.findAllSongIdsByUserIdForUpdate(7L)).thenReturn(List.of(SONG_ID, 2L));
+        AtomicBoolean deleted = new AtomicBoolean();
+
+        songLikeCounter.unlikeAll(7L, () -> deleted.set(true));
+
+        assertThat(deleted).isTrue();
+        verify(songLikeRepository).deleteAllByUserId(7L);
+        assertThat(songLikeCounter.pending(SONG_ID)).isEqualTo(-1);
+        assertThat(songLikeCounter.pending(2L)).isEqualTo(-1);
+    }
+
+    @Test
+    void countsAndPendingAddUpWhileFlushing() throws Exception {
+        // Slow like transactions keep flushes waiting on in-flight likes
+        when(songLikeRepository.insertIfAbsent(anyLong(), anyLong())).thenAnswer(invocation -> {
+            if (ThreadLocalRandom.current().nextInt(4) == 0) {
+                Thread.sleep(1);
+            }
+            return 1;
+        });
+        int likers = 4;
+        int likesPerLiker = 500;
+        AtomicLong started = new AtomicLong();
+        AtomicLong completed = new AtomicLong();
+        AtomicBoolean done = new AtomicBoolean();
+        List<String> violations = new CopyOnWriteArrayList<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(likers + 2);
+        try {
+            List<Future<?>> likes = new ArrayList<>();
+            for (int liker = 0; liker < likers; liker++) {
+                long firstUserId = (long) liker * likesPerLiker;
+                likes.add(executor.submit(() -> {
+                    for (long userId = firstUserId; userId < firstUserId + likesPerLiker; userId++) {
+                        started.incrementAndGet();
+                        songLikeCounter.like(userId, SONG_ID);
+                        completed.incrementAndGet();
+                    }
+                }));
+            }
+            Future<?> flusher = executor.submit(() -> {
+                while (!done.get()) {
+                    songLikeCounter.flush();
+                }
+            });
+            Future<?> reader = executor.submit(() -> {
+                while (!done.get()) {
+                    long atLeast = completed.get();
+                    long seen = database.read(() -> database.likeCount(SONG_ID) + songLikeCounter.pending(SONG_ID));
+                    long atMost = started.get();
+                    if (seen < atLeast || seen > atMost) {
+                        violations.add(seen + " outside [" + atLeast + ", " + atMost + "]");
+                    }
+                }
+            });
+
+            for (Future<?> like : likes) {
+                like.get(30, TimeUnit.SECONDS);
+            }
+            done.set(true);
+            flusher.get(30, TimeUnit.SECONDS);
+            reader.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+        songLikeCounter.flush();
+
+        assertThat(violations).isEmpty();
+        assertThat(database.likeCount(SONG_ID)).isEqualTo((long) likers * likesPerLiker);
+        assertThat(songLikeCounter.pending(SONG_ID)).isZero();
+    }
+
+    /**
+     * song.like_count as the counter writes it. Updates apply at commit, and a commit together with
+     * its afterCommit callbacks is atomic to {@link #read} callers, as a database read and the
+     * in-memory state are to a request in practice.
+     */
+    private static final class FakeDatabase implements PlatformTransactionManager {
+        private final Map<Long, Long> likeCounts = new ConcurrentHashMap<>();
+        private final ThreadLocal<List<Object[]>> staged = ThreadLocal.withInitial(ArrayList::new);
+        private final ReadWriteLock commitLock = new ReentrantReadWriteLock();
+        private final AtomicBoolean failNextCommit = new AtomicBoolean();
+        private final AbstractPlatformTransactionManager transactions = new AbstractPlatformTransactionManager() {
+            @Override
+            protected Object doGetTransaction() {
+                return new Object();
+            }
+
+            @Override
+            protected void doBegin(Object transaction, TransactionDefinition definition) {
+                staged.get().clear();
+            }
+
+            @Override
+            protected void doCommit(DefaultTransactionStatus status) {
+                if (failNextCommit.compareAndSet(true, false)) {
+                    staged.get().clear();
+                    throw new DataAccessResourceFailureException("Connection lost");
+                }
+                staged.get().forEach(args -> likeCounts.merge((Long) args[1], (Long) args[0], Long::sum));
+                staged.get().clear();
+            }
+
+            @Override
+            protected void doRollback(DefaultTransactionStatus status) {
+                staged.get().clear();
+            }
+        };
+
+        void stage(String sql, List<Object[]> batchArgs) {
+            if (sql.startsWith("UPDATE song SET")) {
+                staged.get().addAll(batchArgs);
+            }
+        }
+
+        long likeCount(Long songId) {
+            return likeCounts.getOrDefault(songId, 0L);
+        }
+
+        long read(Callable<Long> reader) {
+            commitLock.readLock().lock();
+            try {
+                return reader.call();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            } finally {
+                commitLock.readLock().unlock();
+            }
+        }
+
+        void failNextCommit() {
+            failNextCommit.set(true);
+        }
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return transactions.getTransaction(definition);
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            commitLock.writeLock().lock();
+            try {
+                transactions.commit(status);
+            } finally {
+                commitLock.writeLock().unlock();
+            }
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+            transactions.rollback(status);
+        }
+    }
+}
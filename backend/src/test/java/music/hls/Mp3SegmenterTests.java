@@ -0,0 +1,135 @@
+package music.hls;
+
+import music.model.SongHls;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class Mp3SegmenterTests {
+    private static final long TARGET_MICROS = 6_000_000;
+    // MPEG-1 layer III, 128kbps, 44.1kHz, no padding
+    private static final String MPEG1_L3_128K = "FFFB9064";
+    private static final int MPEG1_L3_128K_LENGTH = 417;
+
+    @ParameterizedTest
+    @CsvSource({
+            // MPEG-1 layer III: 144 * bitrate / sampleRate + padding
+            "FFFB9064, 417, 1152, 44100",
+            "FFFB9264, 418, 1152, 44100",
+            "FFFBE464, 960, 1152, 48000",
+            // MPEG-1 layer II
+            "FFFDA064, 626, 1152, 44100",
+            // MPEG-1 layer I: (12 * bitrate / sampleRate + padding) * 4
+            "FFFF4064, 136, 384, 44100",
+            "FFFF4264, 140, 384, 44100",
+            // MPEG-2 and 2.5 layer III: 576 samples, 72 * bitrate / sampleRate + padding
+            "FFF38064, 208, 576, 22050",
+            "FFE31864, 72, 576, 8000"})
+    void readsFrameLengthAndDurationFromTheHeader(String header, int length, int samples, int sampleRate)
+            throws IOException {
+        byte[] audio = frames(header, length, 10);
+
+        List<SongHls.Segment> segments = segment(audio);
+
+        assertThat(segments).containsExactly(
+                new SongHls.Segment(0, 10L * length, 0, 10L * samples * 1_000_000 / sampleRate));
+    }
+
+    @Test
+    void closesSegmentsOnTheFirstFrameBoundaryAfterTheTarget() throws IOException {
+        byte[] audio = frames(MPEG1_L3_128K, MPEG1_L3_128K_LENGTH, 1000);
+
+        List<SongHls.Segment> segments = segment(audio);
+
+        // 230 frames of 1152 samples make the first 6s boundary
+        long segmentLength = 230L * MPEG1_L3_128K_LENGTH;
+        long segmentMicros = 230L * 1152 * 1_000_000 / 44100;
+        assertThat(segments).hasSize(5);
+        for (int i = 0; i < 4; i++) {
+            assertThat(segments.get(i)).isEqualTo(
+                    new SongHls.Segment(i * segmentLength, segmentLength, i * segmentMicros, segmentMicros));
+        }
+        assertThat(segments.get(4)).isEqualTo(new SongHls.Segment(4 * segmentLength,
+                80L * MPEG1_L3_128K_LENGTH, 4 * segmentMicros, 80L * 1152 * 1_000_000 / 44100));
+    }
+
+    @Test
+    void skipsALeadingId3v2Tag() throws IOException {
+        ByteArrayOutputStream audio = new ByteArrayOutputStream();
+        // Syncsafe size 0x0201 = 257, with a frame header inside the tag that must not be read
+        audio.writeBytes(new byte[]{'I', 'D', '3', 3, 0, 0, 0, 0, 0x02, 0x01});
+        byte[] tag = new byte[257];
+        System.arraycopy(HexFormat.of().parseHex(MPEG1_L3_128K), 0, tag, 0, 4);
+        audio.writeBytes(tag);
+        audio.writeBytes(frames(MPEG1_L3_128K, MPEG1_L3_128K_LENGTH, 10));
+
+        List<SongHls.Segment> segments = segment(audio.toByteArray());
+
+        assertThat(segments).singleElement().satisfies(segment -> {
+            assertThat(segment.offset()).isEqualTo(267);
+            assertThat(segment.length()).isEqualTo(10L * MPEG1_L3_128K_LENGTH);
+        });
+    }
+
+    @Test
+    void ignoresASyncPatternNotFollowedByAFrame() throws IOException {
+        ByteArrayOutputStream audio = new ByteArrayOutputStream();
+        audio.writeBytes(HexFormat.of().parseHex(MPEG1_L3_128K));
+        audio.writeBytes(new byte[100]);
+        audio.writeBytes(frames(MPEG1_L3_128K, MPEG1_L3_128K_LENGTH, 10));
+
+        List<SongHls.Segment> segments = segment(audio.toByteArray());
+
+        assertThat(segments).singleElement().satisfies(segment -> {
+            assertThat(segment.offset()).isEqualTo(104);
+            assertThat(segment.length()).isEqualTo(10L * MPEG1_L3_128K_LENGTH);
+        });
+    }
+
+    @Test
+    void leavesOutATruncatedLastFrameAndTrailingTags() throws IOException {
+        byte[] complete = frames(MPEG1_L3_128K, MPEG1_L3_128K_LENGTH, 10);
+        ByteArrayOutputStream withTag = new ByteArrayOutputStream();
+        withTag.writeBytes(complete);
+        byte[] id3v1 = new byte[128];
+        System.arraycopy("TAG".getBytes(StandardCharsets.US_ASCII), 0, id3v1, 0, 3);
+        withTag.writeBytes(id3v1);
+        ByteArrayOutputStream truncated = new ByteArrayOutputStream();
+        truncated.writeBytes(complete);
+        truncated.writeBytes(frames(MPEG1_L3_128K, MPEG1_L3_128K_LENGTH, 1), 0, 100);
+
+        SongHls.Segment expected = new SongHls.Segment(0, 10L * MPEG1_L3_128K_LENGTH, 0, 11520L * 1_000_000 / 44100);
+        assertThat(segment(withTag.toByteArray())).containsExactly(expected);
+        assertThat(segment(truncated.toByteArray())).containsExactly(expected);
+    }
+
+    @Test
+    void returnsNoSegmentsWithoutMpegAudio() throws IOException {
+        assertThat(segment("not audio at all".getBytes(StandardCharsets.US_ASCII))).isEmpty();
+        assertThat(segment(new byte[0])).isEmpty();
+        // A lone header has no second one to confirm it
+        assertThat(segment(frames(MPEG1_L3_128K, MPEG1_L3_128K_LENGTH, 1))).isEmpty();
+    }
+
+    private static List<SongHls.Segment> segment(byte[] audio) throws IOException {
+        return Mp3Segmenter.segment(new ByteArrayInputStream(audio), TARGET_MICROS);
+    }
+
+    private static byte[] frames(String header, int length, int count) {
+        byte[] headerBytes = HexFormat.of().parseHex(header);
+        byte[] frames = new byte[length * count];
+        for (int i = 0; i < count; i++) {
+            System.arraycopy(headerBytes, 0, frames, i * length, headerBytes.length);
+        }
+        return frames;
+    }
+}
@@ -0,0 +1,155 @@
+package music.repository.specification;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import music.constant.Gender;
+import music.exception.InvalidDataException;
+import music.model.Album;
+import music.model.Artist;
+import music.model.Song;
+import music.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SearchFilterParserTests {
+    // Java types of the searchable attributes, as the JPA metamodel reports them
+    private static final Map<Class<?>, Map<String, Class<?>>> ATTRIBUTE_TYPES = Map.of(
+            Song.class, Map.of("id", Long.class, "name", String.class, "duration", int.class,
+                    "likeCount", long.class, "createdAt", Date.class, "updatedAt", Date.class),
+            Artist.class, Map.of("id", Long.class, "name", String.class, "bio", String.class,
+                    "followers", long.class, "createdAt", Date.class, "updatedAt", Date.class),
+            Album.class, Map.of("id", Long.class, "name", String.class, "createdAt", Date.class, "updatedAt", Date.class),
+            User.class, Map.ofEntries(Map.entry("id", long.class), Map.entry("firstName", String.class),
+                    Map.entry("lastName", String.class), Map.entry("gender", Gender.class),
+                    Map.entry("dateOfBirth", Date.class), Map.entry("phoneNumber", String.class),
+                    Map.entry("email", String.class), Map.entry("username", String.class),
+                    Map.entry("active", boolean.class), Map.entry("createdAt", Date.class),
+                    Map.entry("updatedAt", Date.class)));
+
+    private SearchFilterParser parser;
+
+    @BeforeEach
+    void setUp() {
+        parser = new SearchFilterParser(100, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(parser, "entityManager", entityManager());
+        parser.resolveKeyTypes();
+    }
+
+    @Test
+    void termsAreParsedWithTheirLogicAndTypedValues() {
+        SearchFilter filter = parser.parse(Song.class, "name~love,likeCount>=100'duration<-5");
+
+        assertThat(filter.terms()).containsExactly(
+                new SearchFilter.Term(null, "name", String.class, SearchOperator.CONTAIN, "love", null),
+                new SearchFilter.Term(",", "likeCount", Long.class, SearchOperator.GREATER_THAN_OR_EQUAL_TO, 100L, null),
+                new SearchFilter.Term("'", "duration", Integer.class, SearchOperator.LESS_THAN, -5, null));
+    }
+
+    @Test
+    void termsAfterTheFirstWithoutLogicAreIgnored() {
+        SearchFilter filter = parser.parse(Song.class, "name~love name~hate");
+
+        assertThat(filter.terms()).hasSize(1);
+    }
+
+    @Test
+    void rangesBecomeBetweenTerms() {
+        assertThat(parser.parse(Song.class, "likeCount=100..500").terms()).containsExactly(
+                new SearchFilter.Term(null, "likeCount", Long.class, SearchOperator.BETWEEN, 100L, 500L));
+        assertThat(parser.parse(Song.class, "likeCount=100..").terms()).containsExactly(
+                new SearchFilter.Term(null, "likeCount", Long.class, SearchOperator.BETWEEN, 100L, null));
+        assertThat(parser.parse(Song.class, "likeCount=..500").terms()).containsExactly(
+                new SearchFilter.Term(null, "likeCount", Long.class, SearchOperator.BETWEEN, null, 500L));
+    }
+
+    @Test
+    void rangeWithoutBoundsIsRejected() {
+        assertThatThrownBy(() -> parser.parse(Song.class, "likeCount=.."))
+                .isInstanceOf(InvalidDataException.class);
+    }
+
+    @Test
+    void textValuesAreNeverRanges() {
+        assertThat(parser.parse(Song.class, "name=a..b").terms()).containsExactly(
+                new SearchFilter.Term(null, "name", String.class, SearchOperator.EQUAL, "a..b", null));
+    }
+
+    @Test
+    void datesEnumsAndBooleansAreConverted() {
+        Date day = Date.from(LocalDate.of(2024, 1, 31).atStartOfDay(ZoneId.systemDefault()).toInstant());
+
+        assertThat(parser.parse(Song.class, "createdAt>=2024-01-31").terms().get(0).value()).isEqualTo(day);
+        assertThat(parser.parse(User.class, "gender=female").terms().get(0).value()).isEqualTo(Gender.FEMALE);
+        assertThat(parser.parse(User.class, "active=TRUE").terms().get(0).value()).isEqualTo(Boolean.TRUE);
+    }
+
+    @Test
+    void invalidValuesAreRejected() {
+        assertThatThrownBy(() -> parser.parse(Song.class, "likeCount=many"))
+                .isInstanceOf(InvalidDataException.class);
+        assertThatThrownBy(() -> parser.parse(Song.class, "createdAt>2024-13-01"))
+                .isInstanceOf(InvalidDataException.class);
+        assertThatThrownBy(() -> parser.parse(User.class, "gender=unknown"))
+                .isInstanceOf(InvalidDataException.class);
+        assertThatThrownBy(() -> parser.parse(User.class, "active=yes"))
+                .isInstanceOf(InvalidDataException.class);
+    }
+
+    @Test
+    void keysOutsideTheWhitelistAreRejected() {
+        assertThatThrownBy(() -> parser.parse(User.class, "password=secret"))
+                .isInstanceOf(InvalidDataException.class);
+        assertThatThrownBy(() -> parser.parse(Album.class, "likeCount>1"))
+                .isInstanceOf(InvalidDataException.class);
+    }
+
+    @Test
+    void textOperatorsOnlyApplyToText() {
+        assertThatThrownBy(() -> parser.parse(Song.class, "likeCount~5"))
+                .isInstanceOf(InvalidDataException.class);
+    }
+
+    @Test
+    void compiledSpecificationsAreCachedByNormalizedString() {
+        assertThat(parser.compile(Song.class, " name~love ")).isSameAs(parser.compile(Song.class, "name~love"));
+        assertThat(parser.compile(Song.class, "name~love")).isNotSameAs(parser.compile(Artist.class, "name~love"));
+    }
+
+    @Test
+    void nothingToFilterCompilesToNull() {
+        assertThat(parser.compile(Song.class, null)).isNull();
+        assertThat(parser.compile(Song.class, "  ")).isNull();
+        assertThat(parser.compile(Song.class, "???")).isNull();
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static EntityManager entityManager() {
+        Metamodel metamodel = mock(Metamodel.class);
+        ATTRIBUTE_TYPES.forEach((entityClass, types) -> {
+            EntityType entityType = mock(EntityType.class);
+            types.forEach((key, type) -> {
+                Attribute attribute = mock(Attribute.class);
+                when(attribute.getJavaType()).thenReturn(type);
+                when(entityType.getAttribute(key)).thenReturn(attribute);
+            });
+            when(metamodel.entity(entityClass)).thenReturn(entityType);
+        });
+        EntityManager entityManager = mock(EntityManager.class);
+        when(entityManager.getMetamodel()).thenReturn(metamodel);
+        return entityManager;
+    }
+}
@@ -0,0 +1,45 @@
+package music.search;
+
+import music.constant.CatalogType;
+import music.event.SongLikesFlushedEvent;
+import music.repository.AlbumRepository;
+import music.repository.ArtistRepository;
+import music.repository.SongRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogSuggesterTests {
+
+    @Test
+    void flushedSongLikesMoveTheirAlbumsInTheRanking() {
+        SongRepository songRepository = mock(SongRepository.class);
+        AlbumRepository albumRepository = mock(AlbumRepository.class);
+        when(songRepository.findAllPlayableIdsNamesAndLikeCounts()).thenReturn(List.of(
+                new Object[]{1L, "love one", 10L},
+                new Object[]{2L, "love two", 5L},
+                new Object[]{3L, "single", 0L}));
+        when(albumRepository.findAllIdsNamesAndLikeCounts()).thenReturn(List.of(
+                new Object[]{100L, "love album", 10L},
+                new Object[]{200L, "love songs", 5L}));
+        when(songRepository.findAllIdsAndAlbumIdsByIdIn(Map.of(2L, 7L, 3L, 4L).keySet()))
+                .thenReturn(List.<Object[]>of(new Object[]{2L, 200L}));
+        CatalogSuggester suggester = new CatalogSuggester(songRepository, mock(ArtistRepository.class),
+                albumRepository, 5, 20);
+        suggester.load();
+
+        suggester.onSongLikesFlushed(new SongLikesFlushedEvent(Map.of(2L, 7L, 3L, 4L)));
+
+        assertThat(suggester.suggest(CatalogType.SONG, "love", 5))
+                .extracting(PrefixTrie.Entry::id).containsExactly(2L, 1L);
+        assertThat(suggester.suggest(CatalogType.ALBUM, "love", 5))
+                .extracting(PrefixTrie.Entry::id, PrefixTrie.Entry::popularity)
+                .containsExactly(tuple(200L, 12L), tuple(100L, 10L));
+    }
+}
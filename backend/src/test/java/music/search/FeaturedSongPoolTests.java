@@ -0,0 +1,169 @@
+package music.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import music.constant.CatalogType;
+import music.event.CatalogChangedEvent;
+import music.event.SongLikesFlushedEvent;
+import music.repository.SongRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.*;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FeaturedSongPoolTests {
+    private static final int DRAWS = 2000;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void picksDistinctSongsCappedByThePoolSize(boolean weighted) {
+        FeaturedSongPool pool = pool(30, song(1L, 0L), song(2L, 5L), song(3L, 0L), song(4L, 100L), song(5L, 1L));
+
+        assertThat(pool.sample(3, weighted, null)).hasSize(3).doesNotHaveDuplicates();
+        assertThat(pool.sample(10, weighted, null)).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L);
+    }
+
+    @Test
+    void weightedPicksFavorLikedSongs() {
+        FeaturedSongPool pool = pool(30, song(1L, 99L), song(2L, 0L));
+
+        // Song 1 weighs 100 against 1
+        int liked = countPicks(pool, 1L);
+        assertThat(liked).isGreaterThan(DRAWS * 9 / 10);
+    }
+
+    @Test
+    void songsWithoutLikesCanStillBeDrawn() {
+        FeaturedSongPool pool = pool(30, song(1L, 0L), song(2L, 0L), song(3L, 0L));
+
+        assertThat(pool.sample(3, true, null)).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void uniformPicksIgnoreLikes() {
+        FeaturedSongPool pool = pool(30, song(1L, 1000L), song(2L, 0L));
+
+        int liked = countPicks(pool, 1L, false);
+        assertThat(liked).isBetween(DRAWS * 4 / 10, DRAWS * 6 / 10);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void leavesOutSongsRecentlyServedToTheUser(boolean weighted) {
+        FeaturedSongPool pool = pool(30, song(1L, 0L), song(2L, 3L), song(3L, 7L),
+                song(4L, 0L), song(5L, 50L), song(6L, 1L));
+
+        List<Long> first = pool.sample(3, weighted, "alice");
+        List<Long> second = pool.sample(3, weighted, "alice");
+
+        assertThat(second).doesNotContainAnyElementsOf(first);
+        assertThat(pool.sample(6, weighted, "bob")).containsExactlyInAnyOrder(1L, 2L, 3L, 4L, 5L, 6L);
+    }
+
+    @Test
+    void uniformPicksReachTheLastPositionsForUsersWithHistory() {
+        Object[][] songs = LongStream.rangeClosed(1, 200).mapToObj(id -> song(id, 0L)).toArray(Object[][]::new);
+        FeaturedSongPool pool = pool(30, songs);
+
+        // The last 30 of 200 songs, where new songs are appended, should get about 15% of the picks
+        int lastPicks = 0;
+        for (int i = 0; i < 200; i++) {
+            lastPicks += (int) pool.sample(6, false, "alice").stream().filter(id -> id > 170).count();
+        }
+        assertThat(lastPicks).isGreaterThan(200 * 6 / 20);
+    }
+
+    @Test
+    void allowsRepeatsOnceTooFewSongsAreLeft() {
+        FeaturedSongPool pool = pool(30, song(1L, 0L), song(2L, 0L), song(3L, 0L), song(4L, 0L));
+
+        pool.sample(3, false, "alice");
+
+        assertThat(pool.sample(3, false, "alice")).hasSize(3).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void remembersOnlyTheLastRecentPerUserSongs() {
+        FeaturedSongPool pool = pool(3, song(1L, 0L), song(2L, 0L), song(3L, 0L),
+                song(4L, 0L), song(5L, 0L), song(6L, 0L));
+
+        List<Long> first = pool.sample(3, false, "alice");
+        pool.sample(3, false, "alice");
+
+        // The first picks were pushed out by the second ones, which are now the excluded songs
+        assertThat(pool.sample(3, false, "alice")).containsExactlyInAnyOrderElementsOf(first);
+    }
+
+    @Test
+    void followsSongsAddedAndDeleted() {
+        FeaturedSongPool pool = pool(30, song(1L, 0L), song(2L, 0L), song(3L, 0L));
+
+        pool.onCatalogChanged(CatalogChangedEvent.saved(CatalogType.SONG, 4L, "new song", 2L));
+        pool.onCatalogChanged(CatalogChangedEvent.deleted(CatalogType.SONG, 1L));
+        pool.onCatalogChanged(CatalogChangedEvent.deleted(CatalogType.ARTIST, 2L));
+
+        assertThat(pool.sample(10, false, null)).containsExactlyInAnyOrder(2L, 3L, 4L);
+        assertThat(pool.sample(10, true, null)).containsExactlyInAnyOrder(2L, 3L, 4L);
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        FeaturedSongPool pool = pool(30);
+        LongStream.rangeClosed(1, 40)
+                .forEach(id -> pool.onCatalogChanged(CatalogChangedEvent.saved(CatalogType.SONG, id, "song " + id, id)));
+        LongStream.rangeClosed(1, 40)
+                .filter(id -> id % 3 == 0)
+                .forEach(id -> pool.onCatalogChanged(CatalogChangedEvent.deleted(CatalogType.SONG, id)));
+
+        List<Long> expected = LongStream.rangeClosed(1, 40).filter(id -> id % 3 != 0).boxed().toList();
+        assertThat(pool.sample(100, false, null)).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(pool.sample(100, true, null)).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    @Test
+    void reweighsSongsOnLikeChanges() {
+        FeaturedSongPool pool = pool(30, song(1L, 0L), song(2L, 0L));
+
+        pool.onSongLikesFlushed(new SongLikesFlushedEvent(Map.of(1L, 99L, 3L, 10L)));
+        assertThat(countPicks(pool, 1L)).isGreaterThan(DRAWS * 9 / 10);
+
+        pool.onCatalogChanged(CatalogChangedEvent.saved(CatalogType.SONG, 2L, "renamed", 9999L));
+        assertThat(countPicks(pool, 1L)).isLessThan(DRAWS / 10);
+
+        // Never below the weight of a song without likes
+        pool.onSongLikesFlushed(new SongLikesFlushedEvent(Map.of(2L, -5000L)));
+        assertThat(pool.sample(2, true, null)).containsExactlyInAnyOrder(1L, 2L);
+    }
+
+    private static int countPicks(FeaturedSongPool pool, Long songId) {
+        return countPicks(pool, songId, true);
+    }
+
+    private static int countPicks(FeaturedSongPool pool, Long songId, boolean weighted) {
+        int picks = 0;
+        for (int i = 0; i < DRAWS; i++) {
+            if (pool.sample(1, weighted, null).equals(List.of(songId))) {
+                picks++;
+            }
+        }
+        return picks;
+    }
+
+    private static Object[] song(Long id, Long likeCount) {
+        return new Object[]{id, likeCount};
+    }
+
+    private static FeaturedSongPool pool(int recentPerUser, Object[]... songs) {
+        SongRepository songRepository = mock(SongRepository.class);
+        when(songRepository.findAllPlayableIdsAndLikeCounts()).thenReturn(Arrays.asList(songs));
+        FeaturedSongPool pool = new FeaturedSongPool(songRepository, recentPerUser, 100, 60_000,
+                new SimpleMeterRegistry());
+        pool.load();
+        return pool;
+    }
+}
@@ -0,0 +1,110 @@
+package music.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PrefixTrieTests {
+
+    @Test
+    void findsNamesByThePrefixOfAnyWord() {
+        PrefixTrie trie = new PrefixTrie(5, 20);
+        trie.put(1L, "Shape of You", 10L);
+
+        assertThat(ids(trie.search("sha", 5))).containsExactly(1L);
+        assertThat(ids(trie.search("of y", 5))).containsExactly(1L);
+        assertThat(ids(trie.search("YOU", 5))).containsExactly(1L);
+        assertThat(trie.search("hape", 5)).isEmpty();
+        assertThat(trie.search(" ", 5)).isEmpty();
+    }
+
+    @Test
+    void returnsTheMostPopularEntriesUpToTopK() {
+        PrefixTrie trie = new PrefixTrie(3, 20);
+        trie.put(1L, "love a", 1L);
+        trie.put(2L, "love b", 5L);
+        trie.put(3L, "love c", 3L);
+        trie.put(4L, "love d", 4L);
+        trie.put(5L, "love e", 2L);
+
+        assertThat(ids(trie.search("lo", 10))).containsExactly(2L, 4L, 3L);
+        assertThat(ids(trie.search("lo", 2))).containsExactly(2L, 4L);
+    }
+
+    @Test
+    void tiesAreRankedByNameThenId() {
+        PrefixTrie trie = new PrefixTrie(5, 20);
+        trie.put(3L, "beta", 1L);
+        trie.put(2L, "alpha", 1L);
+        trie.put(1L, "alpha", 1L);
+
+        assertThat(ids(trie.search("a", 5))).containsExactly(1L, 2L);
+        assertThat(trie.search("", 5)).isEmpty();
+    }
+
+    @Test
+    void popularityChangesReorderTheEntries() {
+        PrefixTrie trie = new PrefixTrie(5, 20);
+        trie.put(1L, "song one", 1L);
+        trie.put(2L, "song two", 2L);
+
+        trie.addPopularity(1L, 5);
+        assertThat(ids(trie.search("song", 5))).containsExactly(1L, 2L);
+
+        trie.updatePopularity(2L, 10);
+        assertThat(ids(trie.search("song", 5))).containsExactly(2L, 1L);
+
+        // A rename without popularity keeps the current one
+        trie.put(1L, "song uno", null);
+        assertThat(trie.search("song u", 5)).containsExactly(new PrefixTrie.Entry(1L, "song uno", 6L));
+        assertThat(trie.search("song o", 5)).isEmpty();
+    }
+
+    @Test
+    void removedEntriesAreNotSuggested() {
+        PrefixTrie trie = new PrefixTrie(5, 20);
+        trie.put(1L, "hello", 1L);
+        trie.put(2L, "help", 2L);
+
+        trie.remove(2L);
+
+        assertThat(ids(trie.search("hel", 5))).containsExactly(1L);
+        assertThat(trie.search("help", 5)).isEmpty();
+    }
+
+    @Test
+    void prefixesLongerThanMaxPrefixLengthAreFilteredExactly() {
+        PrefixTrie trie = new PrefixTrie(5, 4);
+        trie.put(1L, "abcdefgh", 1L);
+        trie.put(2L, "abcdxyz", 2L);
+
+        assertThat(ids(trie.search("abcd", 5))).containsExactly(2L, 1L);
+        assertThat(ids(trie.search("abcdef", 5))).containsExactly(1L);
+        assertThat(trie.search("abcdeg", 5)).isEmpty();
+    }
+
+    @Test
+    void aNameReachingANodeThroughSeveralWordsIsListedOnce() {
+        PrefixTrie trie = new PrefixTrie(5, 20);
+        trie.put(1L, "love love love", 1L);
+
+        assertThat(ids(trie.search("love", 5))).containsExactly(1L);
+    }
+
+    @Test
+    void loadReplacesTheWholeContent() {
+        PrefixTrie trie = new PrefixTrie(5, 20);
+        trie.put(1L, "old name", 1L);
+
+        trie.load(List.of(new PrefixTrie.Entry(2L, "new name", 3L), new PrefixTrie.Entry(3L, "name", 5L)));
+
+        assertThat(trie.search("old", 5)).isEmpty();
+        assertThat(ids(trie.search("name", 5))).containsExactly(3L, 2L);
+    }
+
+    private static List<Long> ids(List<PrefixTrie.Entry> entries) {
+        return entries.stream().map(PrefixTrie.Entry::id).toList();
+    }
+}
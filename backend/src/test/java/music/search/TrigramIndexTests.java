@@ -0,0 +1,75 @@
+package music.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTests {
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex();
+        index.put(1L, "Shape of You");
+        index.put(2L, "Hãy Trao Cho Anh");
+        index.put(3L, "Đừng Làm Trái Tim Anh Đau");
+    }
+
+    @Test
+    void findsNamesContainingTheQueryIgnoringCaseAndAccents() {
+        assertThat(index.search("shape")).containsExactly(1L);
+        assertThat(index.search("HAY TRAO")).containsExactly(2L);
+        assertThat(index.search("dung lam")).containsExactly(3L);
+        assertThat(index.search("anh")).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(index.search("ape of y")).containsExactly(1L);
+    }
+
+    @Test
+    void trigramsOutOfOrderDoNotMatch() {
+        index.put(4L, "abcxbcd");
+
+        assertThat(index.search("abcd")).isEmpty();
+        assertThat(index.search("xbcd")).containsExactly(4L);
+    }
+
+    @Test
+    void queriesShorterThanATrigramScanTheNames() {
+        assertThat(index.search("yo")).containsExactly(1L);
+        assertThat(index.search("đ")).containsExactlyInAnyOrder(3L);
+    }
+
+    @Test
+    void unknownQueryFindsNothing() {
+        assertThat(index.search("zzz")).isEmpty();
+        assertThat(index.search("shape of me")).isEmpty();
+    }
+
+    @Test
+    void renameReplacesTheIndexedName() {
+        index.put(1L, "Blinding Lights");
+
+        assertThat(index.search("shape")).isEmpty();
+        assertThat(index.search("lights")).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void removedIdsAreNotFound() {
+        index.remove(2L);
+
+        assertThat(index.search("anh")).containsExactly(3L);
+        assertThat(index.size()).isEqualTo(2);
+    }
+
+    @Test
+    void searchStopsAtTheLimit() {
+        LongStream.rangeClosed(10, 30).forEach(id -> index.put(id, "love song " + id));
+
+        assertThat(index.search("love", 5)).hasSize(5);
+        assertThat(index.search("lo", 5)).hasSize(5);
+        assertThat(index.search("love")).hasSize(21);
+    }
+}
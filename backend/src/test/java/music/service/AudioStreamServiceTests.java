@@ -0,0 +1,112 @@
+package music.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import music.repository.SongRepository;
+import music.storage.AudioFileCache;
+import music.storage.MediaStorage;
+import music.utils.ETagUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AudioStreamServiceTests {
+    private static final String SONG_URL = "https://cdn/song.mp3";
+
+    @TempDir
+    Path directory;
+
+    private SongRepository songRepository;
+    private MediaStorage mediaStorage;
+    private AudioStreamService audioStreamService;
+    private byte[] audio;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        songRepository = mock(SongRepository.class);
+        mediaStorage = mock(MediaStorage.class);
+        audioStreamService = new AudioStreamService(songRepository, mediaStorage, mock(AudioFileCache.class),
+                new ETagUtil(), new SimpleMeterRegistry());
+        audio = new byte[500];
+        Arrays.fill(audio, (byte) 7);
+        givenAudio(audio);
+    }
+
+    @Test
+    void sendsTheWholeFileWithoutRange() throws IOException {
+        MockHttpServletResponse response = stream(null);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.OK.value());
+        assertThat(response.getContentAsByteArray()).isEqualTo(audio);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isNull();
+    }
+
+    @Test
+    void sendsTheRequestedRange() throws IOException {
+        MockHttpServletResponse response = stream("bytes=100-199");
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PARTIAL_CONTENT.value());
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 100-199/500");
+        assertThat(response.getContentAsByteArray()).hasSize(100);
+    }
+
+    @Test
+    void cutsARangeEndingPastTheFile() throws IOException {
+        MockHttpServletResponse response = stream("bytes=400-9999");
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.PARTIAL_CONTENT.value());
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 400-499/500");
+        assertThat(response.getContentAsByteArray()).hasSize(100);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"bytes=500-", "bytes=1000-", "bytes=1000-2000", "bytes=-0"})
+    void rejectsRangesStartingPastTheEnd(String range) throws IOException {
+        MockHttpServletResponse response = stream(range);
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */500");
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void rejectsAnyRangeOfAnEmptyFile() throws IOException {
+        givenAudio(new byte[0]);
+
+        MockHttpServletResponse response = stream("bytes=0-");
+
+        assertThat(response.getStatus()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */0");
+    }
+
+    private void givenAudio(byte[] content) throws IOException {
+        Path file = Files.write(directory.resolve("song.mp3"), content);
+        when(songRepository.findSongUrlById(1L)).thenReturn(Optional.of(SONG_URL));
+        when(mediaStorage.localFile(SONG_URL)).thenReturn(Optional.of(file));
+    }
+
+    private MockHttpServletResponse stream(String range) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/song/1/stream");
+        if (range != null) {
+            request.addHeader(HttpHeaders.RANGE, range);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        audioStreamService.stream(1L, request, response);
+        return response;
+    }
+}
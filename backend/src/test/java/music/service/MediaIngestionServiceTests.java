@@ -0,0 +1,246 @@
+package music.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import music.constant.MediaKind;
+import music.constant.SongStatus;
+import music.event.CatalogChangedEvent;
+import music.exception.InvalidDataException;
+import music.model.Song;
+import music.repository.SongListingRepository;
+import music.repository.SongRepository;
+import music.storage.MediaStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MediaIngestionServiceTests {
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    @TempDir
+    Path stagingDir;
+
+    private SongRepository songRepository;
+    private SongListingRepository songListingRepository;
+    private MediaStorage mediaStorage;
+    private HlsService hlsService;
+    private ApplicationEventPublisher eventPublisher;
+    private MediaIngestionService mediaIngestionService;
+    // What the storage received, by kind
+    private final Map<MediaKind, String> stored = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        songRepository = mock(SongRepository.class);
+        songListingRepository = mock(SongListingRepository.class);
+        mediaStorage = mock(MediaStorage.class);
+        hlsService = mock(HlsService.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        when(mediaStorage.store(any(), any())).thenAnswer(invocation -> {
+            InputStreamSource content = invocation.getArgument(0);
+            MediaKind kind = invocation.getArgument(1);
+            try (InputStream input = content.getInputStream()) {
+                stored.put(kind, new String(input.readAllBytes()));
+            }
+            return "https://cdn/" + kind.name().toLowerCase();
+        });
+        when(hlsService.segment(any())).thenReturn(List.of());
+        mediaIngestionService = service(2, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mediaIngestionService.shutdown();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void stagesTheFilesAfterCommitThenReleasesTheSong() throws Exception {
+        Song song = processingSong(1L);
+
+        ingestAndCommit(1L, file("image"), file("audio"));
+
+        verify(songListingRepository, timeout(TIMEOUT_MILLIS)).refreshBySongIds(List.of(1L));
+        assertThat(stored).containsEntry(MediaKind.IMAGE, "image").containsEntry(MediaKind.AUDIO, "audio");
+        assertThat(song.getStatus()).isEqualTo(SongStatus.READY);
+        assertThat(song.getImageUrl()).isEqualTo("https://cdn/image");
+        assertThat(song.getSongUrl()).isEqualTo("https://cdn/audio");
+        verify(hlsService).save(1L, "https://cdn/audio", List.of());
+        verify(eventPublisher, timeout(TIMEOUT_MILLIS)).publishEvent(any(CatalogChangedEvent.class));
+        awaitDeleted(stagingDir.resolve("1"));
+    }
+
+    @Test
+    void nothingIsStagedBeforeTheCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        mediaIngestionService.ingestAfterCommit(1L, file("image"), file("audio"));
+
+        assertThat(stagingDir.resolve("1")).doesNotExist();
+        verifyNoInteractions(mediaStorage);
+    }
+
+    @Test
+    void marksTheSongFailedAndKeepsTheFilesWhenAnUploadFails() throws IOException {
+        processingSong(1L);
+        doThrow(new IOException("Storage is down")).when(mediaStorage).store(any(), eq(MediaKind.AUDIO));
+
+        ingestAndCommit(1L, null, file("audio"));
+
+        verify(songRepository, timeout(TIMEOUT_MILLIS))
+                .updateStatus(eq(1L), eq(SongStatus.PROCESSING), eq(SongStatus.FAILED), anyString());
+        verify(songListingRepository, never()).refreshBySongIds(any());
+        assertThat(stagingDir.resolve("1").resolve("audio")).hasContent("audio");
+    }
+
+    @Test
+    void marksTheSongFailedWhenThePoolIsFull() throws Exception {
+        mediaIngestionService.shutdown();
+        mediaIngestionService = service(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return "https://cdn/image";
+        }).when(mediaStorage).store(any(), any());
+        processingSong(1L);
+        processingSong(2L);
+        processingSong(3L);
+
+        try {
+            // One upload running, one queued, the third one rejected
+            ingestAndCommit(1L, file("image"), null);
+            ingestAndCommit(2L, file("image"), null);
+            ingestAndCommit(3L, file("image"), null);
+
+            verify(songRepository).updateStatus(3L, SongStatus.PROCESSING, SongStatus.FAILED,
+                    "Too many uploads in progress, please retry later");
+            verify(songRepository, never()).updateStatus(eq(1L), any(), eq(SongStatus.FAILED), any());
+        } finally {
+            release.countDown();
+        }
+        verify(songListingRepository, timeout(TIMEOUT_MILLIS)).refreshBySongIds(List.of(2L));
+    }
+
+    @Test
+    void retriesOnlyFailedSongsWithStagedFiles() throws IOException {
+        assertThatThrownBy(() -> mediaIngestionService.retry(1L))
+                .isInstanceOf(InvalidDataException.class);
+
+        stage(1L, "audio");
+        when(songRepository.updateStatus(1L, SongStatus.FAILED, SongStatus.PROCESSING, null)).thenReturn(0);
+        assertThatThrownBy(() -> mediaIngestionService.retry(1L))
+                .isInstanceOf(InvalidDataException.class)
+                .hasMessageContaining("Only a failed upload");
+        verifyNoInteractions(mediaStorage);
+
+        processingSong(1L);
+        when(songRepository.updateStatus(1L, SongStatus.FAILED, SongStatus.PROCESSING, null)).thenReturn(1);
+        mediaIngestionService.retry(1L);
+
+        verify(songListingRepository, timeout(TIMEOUT_MILLIS)).refreshBySongIds(List.of(1L));
+        assertThat(stored).containsEntry(MediaKind.AUDIO, "audio");
+    }
+
+    @Test
+    void resumesProcessingSongsFromTheirStagedFilesAtStartup() throws IOException {
+        when(songRepository.findAllIdsByStatus(SongStatus.PROCESSING)).thenReturn(List.of(1L, 2L));
+        processingSong(1L);
+        stage(1L, "audio");
+
+        mediaIngestionService.resumeInterrupted();
+
+        verify(songListingRepository, timeout(TIMEOUT_MILLIS)).refreshBySongIds(List.of(1L));
+        verify(songRepository).updateStatus(2L, SongStatus.PROCESSING, SongStatus.FAILED,
+                "Media upload was interrupted, upload the files again");
+        verify(songRepository, never()).updateStatus(eq(1L), any(), any(), any());
+    }
+
+    @Test
+    void leavesSongsDeletedDuringTheUploadAlone() throws Exception {
+        when(songRepository.findById(anyLong())).thenReturn(Optional.empty());
+        stage(1L, "audio");
+        when(songRepository.updateStatus(1L, SongStatus.FAILED, SongStatus.PROCESSING, null)).thenReturn(1);
+
+        mediaIngestionService.retry(1L);
+
+        awaitDeleted(stagingDir.resolve("1"));
+        verify(songRepository, never()).saveAndFlush(any());
+        verifyNoInteractions(songListingRepository, eventPublisher);
+    }
+
+    private MediaIngestionService service(int threads, int queueCapacity) {
+        return new MediaIngestionService(songRepository, songListingRepository, mediaStorage, hlsService,
+                eventPublisher, mock(PlatformTransactionManager.class), stagingDir.toString(),
+                threads, queueCapacity, new SimpleMeterRegistry());
+    }
+
+    private Song processingSong(Long id) {
+        Song song = new Song();
+        song.setId(id);
+        song.setName("song " + id);
+        song.setStatus(SongStatus.PROCESSING);
+        when(songRepository.findById(id)).thenReturn(Optional.of(song));
+        return song;
+    }
+
+    private void ingestAndCommit(Long songId, MockMultipartFile imageFile, MockMultipartFile audioFile) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            mediaIngestionService.ingestAfterCommit(songId, imageFile, audioFile);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void stage(Long songId, String name) throws IOException {
+        Path songDir = Files.createDirectories(stagingDir.resolve(songId.toString()));
+        Files.writeString(songDir.resolve(name), name);
+    }
+
+    private static MockMultipartFile file(String content) {
+        return new MockMultipartFile(content, content + ".bin", null, content.getBytes());
+    }
+
+    private static void awaitDeleted(Path path) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (Files.exists(path) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(path).doesNotExist();
+    }
+}
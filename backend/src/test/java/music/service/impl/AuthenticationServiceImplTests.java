@@ -0,0 +1,83 @@
+package music.service.impl;
+
+import music.constant.RoleName;
+import music.dto.request.RegisterRequest;
+import music.dto.response.TokenResponse;
+import music.mapper.UserMapper;
+import music.model.Role;
+import music.model.User;
+import music.repository.ArtistRepository;
+import music.repository.RoleRepository;
+import music.repository.UserRepository;
+import music.security.TokenRevocationStore;
+import music.utils.JwtUtil;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AuthenticationServiceImplTests {
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private AuthenticationManager authenticationManager;
+    @Mock
+    private JwtUtil jwtUtil;
+    @Mock
+    private RoleRepository roleRepository;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    @Mock
+    private UserMapper userMapper;
+    @Mock
+    private ArtistRepository artistRepository;
+    @Mock
+    private UserDetailsService userDetailsService;
+    @Mock
+    private TokenRevocationStore tokenRevocationStore;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private AuthenticationServiceImpl authenticationService;
+
+    // The user is added to its role with one insert, the role's members are never loaded
+    @Test
+    void registerAddsTheUserToItsRoleWithoutLoadingTheRoleMembers() {
+        Role userRole = mock(Role.class);
+        when(userRole.getId()).thenReturn(2);
+        when(roleRepository.findByName(RoleName.USER)).thenReturn(Optional.of(userRole));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            user.setId(10L);
+            return user;
+        });
+        when(jwtUtil.generateFamilyId()).thenReturn("family");
+        when(jwtUtil.generateAccessToken(any(User.class), eq("family"))).thenReturn("access");
+        when(jwtUtil.generateRefreshToken(any(User.class), eq("family"))).thenReturn("refresh");
+
+        TokenResponse tokens = authenticationService.register(
+                new RegisterRequest("listener1", "password1", "password1"), new MockHttpServletResponse());
+
+        assertThat(tokens.getUserId()).isEqualTo(10L);
+        verify(roleRepository).findByName(RoleName.USER);
+        verify(roleRepository).addUserToRoles(10L, List.of(2));
+        verifyNoMoreInteractions(roleRepository);
+        verify(userRole, never()).getUsers();
+    }
+}
@@ -0,0 +1,85 @@
+package music.service.impl;
+
+import music.dto.request.UpdateSongRequest;
+import music.mapper.SongMapper;
+import music.model.Genre;
+import music.model.Song;
+import music.repository.GenreRepository;
+import music.repository.SongListingRepository;
+import music.repository.SongRepository;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SongServiceImplTests {
+    @Mock
+    private SongRepository songRepository;
+    @Mock
+    private SongListingRepository songListingRepository;
+    @Mock
+    private GenreRepository genreRepository;
+    @Mock
+    private SongMapper songMapper;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private SongServiceImpl songService;
+
+    // Genre membership is two statements on song_genres whatever the number of genres,
+    // no genre's song collection is loaded
+    @ParameterizedTest
+    @ValueSource(ints = {1, 8})
+    void updateSongWritesGenresWithTwoStatements(int genreCount) throws Exception {
+        Song song = Song.builder()
+                .id(1L)
+                .name("song")
+                .songUrl("https://cdn/song.mp3")
+                .genres(new HashSet<>())
+                .build();
+        Set<String> genreNames = new HashSet<>();
+        Set<Genre> genres = new HashSet<>();
+        IntStream.rangeClosed(1, genreCount).forEach(genreId -> {
+            Genre genre = mock(Genre.class);
+            when(genre.getId()).thenReturn(genreId);
+            genreNames.add("GENRE_" + genreId);
+            genres.add(genre);
+        });
+        UpdateSongRequest request = UpdateSongRequest.builder()
+                .name("song")
+                .duration(180)
+                .genreNames(genreNames)
+                .build();
+        when(songRepository.findById(1L)).thenReturn(Optional.of(song));
+        when(genreRepository.findByNameIn(genreNames)).thenReturn(genres);
+
+        songService.updateSong(1L, request, null, null);
+
+        InOrder inOrder = inOrder(songRepository);
+        inOrder.verify(songRepository).removeGenresNotIn(eq(1L), argThat(ids -> ids.size() == genreCount));
+        inOrder.verify(songRepository).addGenres(eq(1L), argThat(ids -> ids.size() == genreCount));
+        verify(songRepository, never()).save(any());
+        verify(songRepository, never()).saveAll(any());
+        verify(songListingRepository).refreshBySongIds(List.of(1L));
+        genres.forEach(genre -> verify(genre, never()).getSongs());
+        verify(genreRepository).findByNameIn(genreNames);
+        verifyNoMoreInteractions(genreRepository);
+    }
+}
@@ -0,0 +1,112 @@
+package music.storage;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.Uploader;
+import music.constant.MediaKind;
+import music.exception.ServiceBusyException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CloudinaryMediaStorageTests {
+    private static final int CHUNK_SIZE = 1024 * 1024;
+
+    private Cloudinary cloudinary;
+    private Uploader uploader;
+
+    @BeforeEach
+    void setUp() {
+        cloudinary = mock(Cloudinary.class);
+        uploader = mock(Uploader.class);
+        when(cloudinary.uploader()).thenReturn(uploader);
+    }
+
+    @Test
+    void storeStreamsTheContentInChunksOfChunkSize() throws Exception {
+        int size = CHUNK_SIZE * 7 / 2;
+        List<Integer> chunks = new ArrayList<>();
+        when(uploader.uploadLarge(any(), anyMap(), anyInt())).thenAnswer(invocation -> {
+            InputStream input = invocation.getArgument(0);
+            int bufferSize = invocation.getArgument(2);
+            for (byte[] chunk = input.readNBytes(bufferSize); chunk.length > 0; chunk = input.readNBytes(bufferSize)) {
+                chunks.add(chunk.length);
+            }
+            return Map.of("url", "https://cdn/audio.mp3");
+        });
+        CloudinaryMediaStorage storage = new CloudinaryMediaStorage(cloudinary, CHUNK_SIZE, 2, 1000, 1000);
+
+        String url = storage.store(() -> new ByteArrayInputStream(new byte[size]), MediaKind.AUDIO);
+
+        assertThat(url).isEqualTo("https://cdn/audio.mp3");
+        assertThat(chunks).containsExactly(CHUNK_SIZE, CHUNK_SIZE, CHUNK_SIZE, CHUNK_SIZE / 2);
+    }
+
+    @Test
+    void concurrentUploadsNeverExceedMaxConcurrent() throws Exception {
+        AtomicInteger uploading = new AtomicInteger();
+        AtomicInteger mostUploading = new AtomicInteger();
+        when(uploader.uploadLarge(any(), anyMap(), anyInt())).thenAnswer(invocation -> {
+            mostUploading.accumulateAndGet(uploading.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            uploading.decrementAndGet();
+            return Map.of("url", "https://cdn/image.png");
+        });
+        CloudinaryMediaStorage storage = new CloudinaryMediaStorage(cloudinary, CHUNK_SIZE, 2, 10_000, 1000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> uploads = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                uploads.add(executor.submit(() -> storage.store(() -> new ByteArrayInputStream(new byte[16]), MediaKind.IMAGE)));
+            }
+            for (Future<String> upload : uploads) {
+                assertThat(upload.get(10, TimeUnit.SECONDS)).isEqualTo("https://cdn/image.png");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(mostUploading.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void storeFailsWithServiceBusyWhenNoPermitFreesUpInTime() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(uploader.uploadLarge(any(), anyMap(), anyInt())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return Map.of("url", "https://cdn/image.png");
+        });
+        CloudinaryMediaStorage storage = new CloudinaryMediaStorage(cloudinary, CHUNK_SIZE, 1, 50, 1000);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> first = executor.submit(() -> storage.store(() -> new ByteArrayInputStream(new byte[16]), MediaKind.IMAGE));
+            assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> storage.store(() -> new ByteArrayInputStream(new byte[16]), MediaKind.IMAGE))
+                    .isInstanceOf(ServiceBusyException.class);
+
+            release.countDown();
+            assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo("https://cdn/image.png");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
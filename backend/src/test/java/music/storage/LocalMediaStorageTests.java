@@ -0,0 +1,84 @@
+package music.storage;
+
+import music.constant.MediaKind;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalMediaStorageTests {
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H'};
+    private static final byte[] MP3 = {'I', 'D', '3', 4, 0, 0, 0, 0, 0, 0, (byte) 0xFF, (byte) 0xFB, (byte) 0x90};
+
+    @TempDir
+    Path root;
+
+    private LocalMediaStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        // A buffer smaller than the signature, so it is read across several reads
+        storage = new LocalMediaStorage(root.toString(), "http://localhost/media/", 5);
+    }
+
+    @Test
+    void namesStoredFilesWithTheExtensionOfTheirFormat() throws IOException {
+        String imageUrl = storage.store(() -> new ByteArrayInputStream(PNG), MediaKind.IMAGE);
+        String audioUrl = storage.store(() -> new ByteArrayInputStream(MP3), MediaKind.AUDIO);
+
+        assertThat(imageUrl).startsWith("http://localhost/media/image/").endsWith(".png");
+        assertThat(audioUrl).startsWith("http://localhost/media/audio/").endsWith(".mp3");
+        assertThat(MediaTypeFactory.getMediaType(imageUrl)).contains(MediaType.IMAGE_PNG);
+        assertThat(MediaTypeFactory.getMediaType(audioUrl)).contains(MediaType.parseMediaType("audio/mpeg"));
+        try (InputStream input = storage.open(imageUrl)) {
+            assertThat(input.readAllBytes()).isEqualTo(PNG);
+        }
+    }
+
+    @Test
+    void findsTheFormatOfStagedFilesWithoutAName() throws IOException {
+        Path staged = Files.write(Files.createDirectories(root.resolve("staging")).resolve("audio"), MP3);
+
+        String url = storage.store(new FileSystemResource(staged), MediaKind.AUDIO);
+
+        assertThat(url).endsWith(".mp3");
+        assertThat(storage.localFile(url)).hasValueSatisfying(file -> assertThat(file).hasBinaryContent(MP3));
+    }
+
+    @Test
+    void storesTheSameContentOnce() throws IOException {
+        String first = storage.store(() -> new ByteArrayInputStream(PNG), MediaKind.IMAGE);
+        String second = storage.store(() -> new ByteArrayInputStream(PNG), MediaKind.IMAGE);
+
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    void storesUnknownFormatsWithoutExtension() throws IOException {
+        String url = storage.store(() -> new ByteArrayInputStream("plain text".getBytes()), MediaKind.IMAGE);
+
+        assertThat(url.substring(url.lastIndexOf('/') + 1)).matches("[0-9a-f]{64}");
+        assertThat(storage.localFile(url)).isPresent();
+    }
+
+    @Test
+    void recognizesAudioFramesWithoutTags() {
+        assertThat(LocalMediaStorage.extension(MediaKind.AUDIO, new byte[]{(byte) 0xFF, (byte) 0xFB})).isEqualTo(".mp3");
+        assertThat(LocalMediaStorage.extension(MediaKind.AUDIO, new byte[]{(byte) 0xFF, (byte) 0xF1})).isEqualTo(".aac");
+        assertThat(LocalMediaStorage.extension(MediaKind.AUDIO,
+                new byte[]{0, 0, 0, 0x20, 'f', 't', 'y', 'p', 'M', '4', 'A', ' '})).isEqualTo(".m4a");
+        assertThat(LocalMediaStorage.extension(MediaKind.IMAGE, new byte[]{(byte) 0xFF, (byte) 0xD8, (byte) 0xFF}))
+                .isEqualTo(".jpg");
+        assertThat(LocalMediaStorage.extension(MediaKind.AUDIO, new byte[]{(byte) 0xFF})).isEmpty();
+    }
+}
@@ -0,0 +1,103 @@
+package music.utils;
+
+import music.exception.InvalidDataException;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorUtilTests {
+    private static final Sort.Order BY_LIKES = Sort.Order.desc("likeCount");
+    private final CursorUtil cursorUtil = new CursorUtil();
+
+    @Test
+    void sortKeysOfEverySupportedTypeRoundTrip() {
+        List<Object> sortKeys = List.of(42L, 7, new Date(1_700_000_000_000L), "a|b:c", "");
+
+        for (Object sortKey : sortKeys) {
+            String cursor = cursorUtil.encode(BY_LIKES, new CursorUtil.Position(sortKey, 15L));
+
+            assertThat(cursorUtil.decode(cursor, BY_LIKES)).isEqualTo(new CursorUtil.Position(sortKey, 15L));
+        }
+    }
+
+    @Test
+    void nullSortKeyRoundTrips() {
+        String cursor = cursorUtil.encode(BY_LIKES, new CursorUtil.Position(null, 3L));
+
+        assertThat(cursorUtil.decode(cursor, BY_LIKES)).isEqualTo(new CursorUtil.Position(null, 3L));
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        String cursor = cursorUtil.encode(BY_LIKES, new CursorUtil.Position("???>>>", 1L));
+
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void nextCursorPointsAfterTheLastRowOfAFullPage() {
+        List<CursorUtil.Position> positions = List.of(
+                new CursorUtil.Position(30L, 1L),
+                new CursorUtil.Position(20L, 2L),
+                new CursorUtil.Position(10L, 3L));
+
+        String cursor = cursorUtil.nextCursor(BY_LIKES, positions, 2);
+
+        assertThat(cursorUtil.decode(cursor, BY_LIKES)).isEqualTo(new CursorUtil.Position(20L, 2L));
+    }
+
+    @Test
+    void lastPageHasNoNextCursor() {
+        List<CursorUtil.Position> positions = List.of(new CursorUtil.Position(30L, 1L));
+
+        assertThat(cursorUtil.nextCursor(BY_LIKES, positions, 2)).isNull();
+        assertThat(cursorUtil.nextCursor(BY_LIKES, List.of(), 2)).isNull();
+    }
+
+    @Test
+    void blankCursorStartsFromTheFirstPage() {
+        assertThat(cursorUtil.decode(null, BY_LIKES)).isNull();
+        assertThat(cursorUtil.decode(" ", BY_LIKES)).isNull();
+    }
+
+    @Test
+    void cursorOfAnotherSortIsRejected() {
+        String cursor = cursorUtil.encode(BY_LIKES, new CursorUtil.Position(1L, 1L));
+
+        assertThatThrownBy(() -> cursorUtil.decode(cursor, Sort.Order.asc("likeCount")))
+                .isInstanceOf(InvalidDataException.class);
+        assertThatThrownBy(() -> cursorUtil.decode(cursor, Sort.Order.desc("name")))
+                .isInstanceOf(InvalidDataException.class);
+    }
+
+    @Test
+    void malformedCursorsAreRejected() {
+        List<String> cursors = List.of("not base64!",
+                encode("likeCount:desc|1|L"),
+                encode("likeCount:desc|x|L|1"),
+                encode("likeCount:desc|1|L|x"),
+                encode("likeCount:desc|1|Q|1"));
+
+        for (String cursor : cursors) {
+            assertThatThrownBy(() -> cursorUtil.decode(cursor, BY_LIKES))
+                    .isInstanceOf(InvalidDataException.class);
+        }
+    }
+
+    @Test
+    void unsupportedSortKeyTypeIsRejected() {
+        assertThatThrownBy(() -> cursorUtil.encode(BY_LIKES, new CursorUtil.Position(1.5, 1L)))
+                .isInstanceOf(InvalidDataException.class);
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}